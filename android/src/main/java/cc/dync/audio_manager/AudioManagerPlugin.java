@@ -5,13 +5,19 @@ import android.app.Activity;
 import android.content.Context;
 import android.content.pm.PackageManager;
 import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.os.Trace;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
 import androidx.core.app.NotificationManagerCompat;
 import androidx.core.content.ContextCompat;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import io.flutter.embedding.engine.plugins.FlutterPlugin;
@@ -30,8 +36,19 @@ public class AudioManagerPlugin implements FlutterPlugin, MethodCallHandler, Act
     private static AudioManagerPlugin instance;
     private Context context;
     private MethodChannel channel;
-    private MediaPlayerHelper helper;
+    // 已挂接事件回调的播放器，按 playerId 区分
+    private final Map<String, MediaPlayerHelper> players = new HashMap<>();
     private VolumeChangeObserver volumeChangeObserver;
+    // 通道断开期间的事件缓冲，重新连接后补发
+    private final EventBuffer eventBuffer = new EventBuffer(EVENT_BUFFER_CAPACITY);
+    // 主线程上随即编码发出的事件复用的 map，断开期间进入缓冲的事件不使用
+    private final Map<String, Object> eventEnvelope = new HashMap<>(4);
+    private final Map<String, Object> playerEnvelope = new HashMap<>(4);
+    private final Map<String, Object> progressArgs = new HashMap<>(4);
+    private final Map<String, Object> bufferingArgs = new HashMap<>(4);
+    private static final int EVENT_BUFFER_CAPACITY = 64;
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
 
     private Activity activity;
     private static final int REQUEST_NOTIFICATION_PERMISSION = 1001;
@@ -53,11 +70,21 @@ public class AudioManagerPlugin implements FlutterPlugin, MethodCallHandler, Act
 
     @Override
     public void onAttachedToEngine(@NonNull FlutterPluginBinding flutterPluginBinding) {
-        final MethodChannel channel = new MethodChannel(flutterPluginBinding.getBinaryMessenger(), "audio_manager");
+        // 启动耗时打点：systrace 中查看 AudioManagerPlugin.attach，logcat 中查看 attach cost
+        long begin = SystemClock.elapsedRealtimeNanos();
+        Trace.beginSection("AudioManagerPlugin.attach");
+        try {
+            final MethodChannel channel = new MethodChannel(flutterPluginBinding.getBinaryMessenger(), "audio_manager");
 
-        channel.setMethodCallHandler(getInstance());
-        setup(flutterPluginBinding.getApplicationContext(), channel);
-        AudioManagerPlugin.flutterAssets = flutterPluginBinding.getFlutterAssets();
+            channel.setMethodCallHandler(getInstance());
+            setup(flutterPluginBinding.getApplicationContext(), channel);
+            AudioManagerPlugin.flutterAssets = flutterPluginBinding.getFlutterAssets();
+        } finally {
+            Trace.endSection();
+        }
+        long costUs = (SystemClock.elapsedRealtimeNanos() - begin) / 1000;
+        Diagnostics.timing("attach_us", costUs, 0);
+        Diagnostics.log(Log.DEBUG, TAG, "attach cost %dus", costUs);
     }
 
     @Override
@@ -69,8 +96,8 @@ public class AudioManagerPlugin implements FlutterPlugin, MethodCallHandler, Act
             if (requestCode == REQUEST_NOTIFICATION_PERMISSION
                     && grantResults.length > 0
                     && grantResults[0] == PackageManager.PERMISSION_GRANTED
-                    && instance.helper != null) {
-                instance.helper.refreshNotification();
+                    && MediaPlayerHelper.getPrimary() != null) {
+                MediaPlayerHelper.getPrimary().refreshNotification();
             }
             return true;
         });
@@ -120,95 +147,252 @@ public class AudioManagerPlugin implements FlutterPlugin, MethodCallHandler, Act
     private void setup(Context context, MethodChannel channel) {
         instance.context = context;
         instance.channel = channel;
+        flushEvents();
+        OfflineDownloads.setListener(instance.downloadListener);
+
+        // 播放器、通知接收器与音量监听都延迟到首次音频调用时创建，不用音频的启动不付出这部分开销；
+        // 进程内已存在的播放器（如媒体按键恢复的会话）立即挂接回调，避免丢事件
+        for (String playerId : MediaPlayerHelper.playerIds()) {
+            playerFor(playerId);
+        }
+    }
+
+    /**
+     * 首次用到时才创建音量监听并注册广播接收器
+     */
+    private VolumeChangeObserver volumeObserver() {
+        if (instance.volumeChangeObserver == null) {
+            Trace.beginSection("AudioManagerPlugin.volumeObserver");
+            try {
+                instance.volumeChangeObserver = new VolumeChangeObserver(instance.context);
+                instance.volumeChangeObserver.setVolumeChangeListener(instance);
+                instance.volumeChangeObserver.registerReceiver();
+            } finally {
+                Trace.endSection();
+            }
+        }
+        return instance.volumeChangeObserver;
+    }
+
+    /**
+     * 按 playerId 取得播放器，首次使用时创建并挂接事件回调
+     */
+    private MediaPlayerHelper playerFor(String playerId) {
+        MediaPlayerHelper helper = instance.players.get(playerId);
+        if (helper != null) return helper;
+        Trace.beginSection("AudioManagerPlugin.playerFor");
+        try {
+            helper = MediaPlayerHelper.getInstance(instance.context, playerId);
+        } finally {
+            Trace.endSection();
+        }
+        if (instance.players.get(playerId) != helper) {
+            setupPlayer(helper);
+            instance.players.put(playerId, helper);
+        }
+        return helper;
+    }
 
-        instance.helper = MediaPlayerHelper.getInstance(instance.context);
-        setupPlayer();
-        volumeChangeObserver = new VolumeChangeObserver(instance.context);
-        volumeChangeObserver.setVolumeChangeListener(instance);
-        volumeChangeObserver.registerReceiver();
+    private static String playerIdOf(MethodCall call) {
+        String playerId = call.hasArgument("playerId") ? call.argument("playerId") : null;
+        return playerId != null ? playerId : MediaPlayerHelper.DEFAULT_PLAYER_ID;
     }
 
-    private void setupPlayer() {
-        MediaPlayerHelper helper = instance.helper;
-
-        helper.setOnStatusCallbackListener((status, args) -> {
-            Log.v(TAG, "--" + status.toString());
-            switch (status) {
-                case ready:
-                    invokeMethod("ready", helper.duration());
-                    break;
-                case seekComplete:
-                    invokeMethod("seekComplete", helper.position());
-                    break;
-                case buffering:
-                    if (args.length == 0) return;
-                    Log.v(TAG, "网络缓冲:" + args[1] + "%");
-
-                    Map<String, Object> map = new HashMap<>();
-                    map.put("buffering", !helper.isPlaying());
-                    map.put("buffer", args[1]);
-                    invokeMethod("buffering", map);
-                    break;
-                case playOrPause:
-                    if (args.length == 0) return;
-                    invokeMethod("playstatus", args[0]);
-                    break;
-                case progress:
-                    if (args.length == 0) return;
-                    Log.v(TAG, "进度:" + args[0] + "%");
-
-                    Map<String, Object> map2 = new HashMap<>();
-                    map2.put("position", helper.position());
-                    map2.put("duration", helper.duration());
-                    invokeMethod("timeupdate", map2);
-                    break;
-                case error:
-                    Log.v(TAG, "播放错误:" + args[0]);
-                    invokeMethod("error", args[0]);
-                    helper.stop();
-                    break;
-                case next:
-                    invokeMethod("next", null);
-                    break;
-                case previous:
-                    invokeMethod("previous", null);
-                    break;
-                case ended:
-                    invokeMethod("ended", null);
-                    break;
-                case stop:
-                    invokeMethod("stop", null);
-                    break;
-                // 视频/SurfaceView 相关回调：纯音频播放不使用，仅作日志
-                case FORMAT_NOT_SUPPORT:
-                    Log.v(TAG, "格式不支持:" + args[0]);
-                    break;
-                case INFO:
-                    Log.v(TAG, "播放开始");
-                    break;
-                case VIDEO_SIZE_CHANGE:
-                    Log.v(TAG, "视频尺寸变化");
-                    break;
-                case SURFACE_CREATE:
-                    Log.v(TAG, "SurfaceView 创建");
-                    break;
-                case SURFACE_DESTROY:
-                    Log.v(TAG, "SurfaceView 销毁");
-                    break;
-                case SURFACE_CHANGE:
-                    Log.v(TAG, "SurfaceView 改变");
-                    break;
-                case SURFACE_NULL:
-                    Log.v(TAG, "SurfaceView 未初始化");
-                    break;
+    private void setupPlayer(MediaPlayerHelper helper) {
+        final String playerId = helper.getPlayerId();
+        // 进度与缓冲只关心最新值，断开期间按播放器合并
+        final String progressKey = playerId + ":timeupdate";
+        final String bufferingKey = playerId + ":buffering";
+
+        helper.setStatusListener(new MediaPlayerHelper.StatusListener() {
+            @Override
+            public void onReady(long durationMs) {
+                invokeMethod(playerId, "ready", durationMs);
+            }
+
+            @Override
+            public void onSeekComplete(long positionMs) {
+                invokeMethod(playerId, "seekComplete", positionMs);
+            }
+
+            @Override
+            public void onBuffering(int percent) {
+                // 与 onProgress 相同：仅在通道连接、参数随即发出时复用
+                Map<String, Object> map = instance.channel != null ? instance.bufferingArgs : new HashMap<>();
+                map.put("buffering", !helper.isPlaying());
+                map.put("buffer", percent);
+                invokeMethod(playerId, "buffering", map, bufferingKey);
+            }
+
+            @Override
+            public void onPlayStatus(boolean playing) {
+                invokeMethod(playerId, "playstatus", playing);
+            }
+
+            @Override
+            public void onProgress(long positionMs, long durationMs) {
+                // 通道连接时参数随即编码发出，复用同一个 map；断开时要进入缓冲，必须独立分配
+                Map<String, Object> map = instance.channel != null ? instance.progressArgs : new HashMap<>();
+                map.put("position", positionMs);
+                map.put("duration", durationMs);
+                invokeMethod(playerId, "timeupdate", map, progressKey);
+            }
+
+            @Override
+            public void onError(String message) {
+                Diagnostics.error(message);
+                Diagnostics.log(Log.VERBOSE, TAG, "播放错误:%s", message);
+                invokeMethod(playerId, "error", message);
+                helper.stop();
+            }
+
+            @Override
+            public void onNext() {
+                invokeMethod(playerId, "next", null);
+            }
+
+            @Override
+            public void onPrevious() {
+                invokeMethod(playerId, "previous", null);
+            }
+
+            @Override
+            public void onEnded() {
+                invokeMethod(playerId, "ended", null);
+            }
+
+            @Override
+            public void onCrossfade(String url) {
+                invokeMethod(playerId, "crossfade", url);
+            }
+
+            @Override
+            public void onQueueIndex(int index, String reason) {
+                Map<String, Object> map = new HashMap<>();
+                map.put("index", index);
+                map.put("reason", reason);
+                invokeMethod(playerId, "queueIndex", map);
+            }
+
+            @Override
+            public void onRecovering(int attempt, long delayMs) {
+                Map<String, Object> map = new HashMap<>();
+                map.put("attempt", attempt);
+                map.put("delay", delayMs);
+                invokeMethod(playerId, "recovering", map);
+            }
+
+            @Override
+            public void onCue(String id, long positionMs, long jitterMs) {
+                Map<String, Object> map = new HashMap<>();
+                map.put("id", id);
+                map.put("position", positionMs);
+                map.put("jitter", jitterMs);
+                invokeMethod(playerId, "cue", map);
+            }
+
+            @Override
+            public void onStop() {
+                invokeMethod(playerId, "stop", null);
+            }
+
+            // 视频/SurfaceView 相关回调：纯音频播放不使用，仅作日志
+            @Override
+            public void onVideoEvent(MediaPlayerHelper.CallBackState status, Object... args) {
+                Diagnostics.log(Log.VERBOSE, TAG, "--%s", status);
             }
         });
     }
 
+    /**
+     * 下载回调来自下载线程，切回主线程后以 download 事件发出；断开期间同一 url 的进度只保留最新一条
+     */
+    private final OfflineDownloads.Listener downloadListener = new OfflineDownloads.Listener() {
+        @Override
+        public void onProgress(String url, long received, long total) {
+            post(url, "running", received, total, null, null);
+        }
+
+        @Override
+        public void onComplete(String url, String path) {
+            post(url, "completed", -1, -1, path, null);
+        }
+
+        @Override
+        public void onFailed(String url, String message) {
+            post(url, "failed", -1, -1, null, message);
+        }
+
+        private void post(String url, String state, long received, long total, String path, String error) {
+            Map<String, Object> map = new HashMap<>();
+            map.put("url", url);
+            map.put("state", state);
+            if (received >= 0) map.put("received", received);
+            if (total >= 0) map.put("total", total);
+            if (path != null) map.put("path", path);
+            if (error != null) map.put("error", error);
+            String key = "running".equals(state) ? "download:" + url : null;
+            instance.mainHandler.post(() -> deliverEvent("download", map, key));
+        }
+    };
+
+    /**
+     * 默认播放器的事件保持原有方法名与参数；其他播放器统一包装为 playerEvent，
+     * 由 Dart 侧按 playerId 分发到对应实例
+     */
+    private void invokeMethod(String playerId, String method, Object args) {
+        invokeMethod(playerId, method, args, null);
+    }
+
+    /**
+     * @param coalesceKey 断开期间按此合并，只保留最新一条，为 null 时逐条保留
+     */
+    private void invokeMethod(String playerId, String method, Object args, String coalesceKey) {
+        if (MediaPlayerHelper.DEFAULT_PLAYER_ID.equals(playerId)) {
+            deliverEvent(method, args, coalesceKey);
+            return;
+        }
+        Map<String, Object> event = instance.channel != null ? instance.playerEnvelope : new HashMap<>();
+        event.put("playerId", playerId);
+        event.put("method", method);
+        event.put("arguments", args);
+        deliverEvent("playerEvent", event, coalesceKey);
+    }
+
     private void invokeMethod(String method, Object args) {
+        deliverEvent(method, args, null);
+    }
+
+    /**
+     * 通道存在时直接发送，否则进入缓冲等待补发
+     */
+    private void deliverEvent(String method, Object args, String coalesceKey) {
         MethodChannel channel = instance.channel;
         if (channel != null) {
-            channel.invokeMethod(method, args);
+            sendEvent(channel, method, args);
+        } else {
+            instance.eventBuffer.add(method, args, coalesceKey);
+        }
+    }
+
+    /**
+     * 事件统一包装为 event：seq 为递增序号，Dart 侧发现跳号或 dropped 即说明有事件丢失
+     */
+    private void sendEvent(MethodChannel channel, String method, Object args) {
+        // 只在主线程调用且 invokeMethod 内同步编码，envelope 可以复用
+        Map<String, Object> event = instance.eventEnvelope;
+        instance.eventBuffer.stamp(event);
+        event.put("method", method);
+        event.put("arguments", args);
+        channel.invokeMethod("event", event);
+        event.clear();
+    }
+
+    private void flushEvents() {
+        MethodChannel channel = instance.channel;
+        if (channel == null) return;
+        for (EventBuffer.Event event : instance.eventBuffer.drain()) {
+            sendEvent(channel, event.method, event.arguments);
         }
     }
 
@@ -216,47 +400,122 @@ public class AudioManagerPlugin implements FlutterPlugin, MethodCallHandler, Act
 
     @Override
     public void onMethodCall(@NonNull MethodCall call, @NonNull Result result) {
-        MediaPlayerHelper helper = instance.helper;
+        String playerId = playerIdOf(call);
+        // 不涉及播放的调用不触发延迟初始化
         switch (call.method) {
             case "getPlatformVersion":
                 result.success("Android " + android.os.Build.VERSION.RELEASE);
-                break;
-            case "start":
-                String url = call.argument("url");
-                String title = call.argument("title");
-                String desc = call.argument("desc");
-                String cover = call.argument("cover");
-
-                boolean isLocal = call.hasArgument("isLocal") ? call.argument("isLocal") : false;
-                boolean isLocalCover = call.hasArgument("isLocalCover") ? call.argument("isLocalCover") : false;
-                boolean isAuto = call.hasArgument("isAuto") ? call.argument("isAuto") : false;
-                Object titleMaxLinesArg = call.argument("titleMaxLines");
-                int titleMaxLines = titleMaxLinesArg == null ? 1 : ((Number) titleMaxLinesArg).intValue();
-                boolean showPreviousButton = call.hasArgument("showPreviousButton") ? call.argument("showPreviousButton") : false;
-                boolean showNextButton = call.hasArgument("showNextButton") ? call.argument("showNextButton") : true;
-                boolean showStopButton = call.hasArgument("showStopButton") ? call.argument("showStopButton") : true;
-                MediaPlayerHelper.MediaInfo info = new MediaPlayerHelper.MediaInfo(title, url);
-                info.desc = desc;
-                info.isAsset = isLocal;
-                info.isAuto = isAuto;
-                info.titleMaxLines = titleMaxLines;
-                info.showPreviousButton = showPreviousButton;
-                info.showNextButton = showNextButton;
-                info.showStopButton = showStopButton;
-                if (isLocal) {
-                    if (flutterAssets != null) {
-                        info.url = AudioManagerPlugin.flutterAssets.getAssetFilePathByName(url);
+                return;
+            case "watchVolume":
+                volumeObserver();
+                result.success("");
+                return;
+            case "setVolume":
+                // 音量只需要观察者，不创建播放器
+                try {
+                    double value = Double.parseDouble(call.argument("value").toString());
+                    volumeObserver().setVolume(value);
+                } catch (Exception ex) {
+                    result.success("参数错误");
+                }
+                return;
+            case "currentVolume":
+                result.success(volumeObserver().getCurrentMusicVolume());
+                return;
+            case "preconnect":
+                {
+                    List<String> urls = call.argument("urls");
+                    NetworkPool.preconnect(urls);
+                    result.success("");
+                }
+                return;
+            case "diagnostics":
+                result.success(Diagnostics.dump());
+                return;
+            case "setLogLevel":
+                {
+                    Integer level = call.argument("level");
+                    if (level == null) {
+                        result.success("参数错误");
+                        return;
                     }
+                    Diagnostics.setLevel(level);
+                    result.success("");
                 }
-                info.cover = cover;
-                if (isLocalCover) {
-                    if (flutterAssets != null) {
-                        if (helper.isDataDirFile(cover)) {
-                            info.cover = cover;
-                        } else {
-                            info.cover = AudioManagerPlugin.flutterAssets.getAssetFilePathByName(cover);
-                        }
+                return;
+            case "serviceStats":
+                result.success(MediaPlayerService.lifecycleStats());
+                return;
+            case "networkLockStats":
+                result.success(NetworkLock.get(instance.context).stats());
+                return;
+            case "probe":
+                {
+                    List<String> urls = call.argument("urls");
+                    if (urls == null) {
+                        result.success("参数错误");
+                        return;
+                    }
+                    List<Boolean> isLocal = call.argument("isLocal");
+                    List<MetadataProbe.Item> items = new ArrayList<>();
+                    for (int i = 0; i < urls.size(); i++) {
+                        String url = urls.get(i);
+                        // 与 start 一样用 Dart 传来的 isLocal 判断 Flutter asset；绝对路径是本地文件，不是 asset
+                        boolean isAsset = isLocal != null && i < isLocal.size() && Boolean.TRUE.equals(isLocal.get(i))
+                                && !url.startsWith("/");
+                        String assetPath = isAsset && flutterAssets != null
+                                ? flutterAssets.getAssetFilePathByName(url) : null;
+                        items.add(new MetadataProbe.Item(url, assetPath));
+                    }
+                    MetadataProbe.probe(instance.context, items, (url, metadata) -> {
+                        metadata.put("url", url);
+                        instance.mainHandler.post(() -> deliverEvent("probe", metadata, null));
+                    });
+                    result.success(items.size());
+                }
+                return;
+            case "mirrorStats":
+                MirrorRace.stats(instance.context, stats -> instance.mainHandler.post(() -> result.success(stats)));
+                return;
+            case "throughputStats":
+                result.success(ThroughputEstimator.stats());
+                return;
+            case "download":
+            case "cancelDownload":
+            case "removeDownload":
+            case "downloadState":
+                {
+                    String url = call.argument("url");
+                    if (url == null) {
+                        result.success("参数错误");
+                        return;
+                    }
+                    switch (call.method) {
+                        case "download":
+                            OfflineDownloads.start(instance.context, url, call.argument("sha256"));
+                            break;
+                        case "cancelDownload":
+                            OfflineDownloads.cancel(url);
+                            break;
+                        case "removeDownload":
+                            OfflineDownloads.remove(instance.context, url);
+                            break;
+                        default:
+                            result.success(OfflineDownloads.state(instance.context, url));
+                            return;
                     }
+                    result.success("");
+                }
+                return;
+        }
+        MediaPlayerHelper helper = playerFor(playerId);
+        volumeObserver();
+        switch (call.method) {
+            case "start":
+                MediaPlayerHelper.MediaInfo info = mediaInfoOf(call.arguments(), helper);
+
+                if (call.hasArgument("queueIndex")) {
+                    helper.moveQueueTo(((Number) call.argument("queueIndex")).intValue());
                 }
 
                 // Android 13+ 需要 POST_NOTIFICATIONS 运行时授权才能展示通知卡片
@@ -286,9 +545,97 @@ public class AudioManagerPlugin implements FlutterPlugin, MethodCallHandler, Act
             case "release":
                 helper.release();
                 break;
+            case "preload":
+                helper.preload(mediaInfoOf(call.arguments(), helper));
+                result.success("");
+                break;
+            case "setQueue":
+                {
+                    List<Map<String, Object>> items = call.argument("items");
+                    List<MediaPlayerHelper.MediaInfo> queue = new ArrayList<>();
+                    if (items != null) {
+                        for (Map<String, Object> item : items) {
+                            queue.add(mediaInfoOf(item, helper));
+                        }
+                    }
+                    Object index = call.argument("index");
+                    Object mode = call.argument("mode");
+                    helper.setQueue(queue,
+                            index == null ? 0 : ((Number) index).intValue(),
+                            mode == null ? PlayQueue.MODE_SEQUENCE : ((Number) mode).intValue(),
+                            call.argument("order"),
+                            boolOf(call.arguments(), "autoAdvance", false));
+                    result.success("");
+                }
+                break;
+            case "setCrossfade":
+                try {
+                    int duration = Integer.parseInt(call.argument("duration").toString());
+                    helper.setCrossfade(duration);
+                    result.success("");
+                } catch (Exception ex) {
+                    result.success("参数错误");
+                }
+                break;
+            case "positionClock":
+                {
+                    String clockPath = helper.openPositionClock();
+                    if (clockPath == null) {
+                        // Dart 侧约定时钟不可用时返回 null
+                        Diagnostics.error("positionClock: 共享内存时钟创建失败");
+                        result.success(null);
+                    } else {
+                        result.success(clockPath);
+                    }
+                }
+                break;
+            case "batch":
+                runBatch(call, playerId, helper, result);
+                break;
+            case "setPrimary":
+                MediaPlayerHelper.setPrimary(instance.context, playerId);
+                result.success("");
+                break;
+            case "disposePlayer":
+                helper.dispose();
+                instance.players.remove(playerId);
+                result.success("");
+                break;
             case "updateLrc":
                 helper.updateLrc(call.argument("lrc"));
                 break;
+            case "setLyrics":
+                result.success(helper.setLyrics(call.argument("lrc")));
+                break;
+            case "setResume":
+                helper.setResumeEnabled(boolOf(call.arguments(), "enabled", false));
+                result.success("");
+                break;
+            case "resumePosition":
+                result.success(helper.resumePosition((String) call.argument("url")));
+                break;
+            case "addCue":
+                try {
+                    String cueId = call.argument("id");
+                    long cuePosition = Long.parseLong(call.argument("position").toString());
+                    helper.addCue(cueId, cuePosition);
+                    result.success("");
+                } catch (Exception ex) {
+                    result.success("参数错误");
+                }
+                break;
+            case "removeCue":
+                result.success(helper.removeCue(call.argument("id")));
+                break;
+            case "setLoop":
+                {
+                    Object loopStart = call.argument("start");
+                    Object loopEnd = call.argument("end");
+                    helper.setLoop(loopStart == null ? -1 : ((Number) loopStart).longValue(),
+                            loopEnd == null ? -1 : ((Number) loopEnd).longValue());
+                    result.success("");
+                }
+                break;
             case "updateInfo":
                 {
                     String updateTitle = call.argument("title");
@@ -325,29 +672,9 @@ public class AudioManagerPlugin implements FlutterPlugin, MethodCallHandler, Act
                     result.success("参数错误");
                 }
                 break;
-            case "setVolume":
-                try {
-                    double value = Double.parseDouble(call.argument("value").toString());
-                    instance.volumeChangeObserver.setVolume(value);
-                } catch (Exception ex) {
-                    result.success("参数错误");
-                }
-                break;
-            case "currentVolume":
-                result.success(instance.volumeChangeObserver.getCurrentMusicVolume());
-                break;
             case "getState":
-                {
-                    Map<String, Object> state = new HashMap<>();
-                    state.put("isPlaying", helper.isPlaying());
-                    state.put("position", helper.position());
-                    state.put("duration", helper.duration());
-                    state.put("title", helper.getTitle());
-                    state.put("desc", helper.getDesc());
-                    state.put("cover", helper.getCover());
-                    state.put("url", helper.getUrl());
-                    result.success(state);
-                }
+                // 读只读快照，不访问 MediaPlayer
+                result.success(helper.snapshot().toMap());
                 break;
             default:
                 result.notImplemented();
@@ -355,11 +682,132 @@ public class AudioManagerPlugin implements FlutterPlugin, MethodCallHandler, Act
         }
     }
 
+    /**
+     * 在一次通道往返内按顺序执行多条命令（start、seekTo、rate、updateInfo 等），
+     * 中间状态不刷新通知，全部完成后统一刷新一次，并按顺序返回每条命令的结果
+     */
+    @SuppressWarnings("unchecked")
+    private void runBatch(MethodCall call, String playerId, MediaPlayerHelper helper, Result result) {
+        List<Map<String, Object>> commands = call.argument("commands");
+        List<Object> results = new ArrayList<>();
+        helper.beginBatch();
+        try {
+            if (commands != null) {
+                for (Map<String, Object> command : commands) {
+                    String method = (String) command.get("method");
+                    Map<String, Object> arguments = new HashMap<>();
+                    Object raw = command.get("arguments");
+                    if (raw instanceof Map) arguments.putAll((Map<String, Object>) raw);
+                    arguments.put("playerId", playerId);
+                    BatchResult batchResult = new BatchResult(method);
+                    if (method == null || "batch".equals(method)) {
+                        batchResult.error("参数错误", "invalid batch command: " + method, null);
+                    } else {
+                        try {
+                            onMethodCall(new MethodCall(method, arguments), batchResult);
+                        } catch (Exception e) {
+                            batchResult.error("exception", e.getMessage(), null);
+                        }
+                    }
+                    results.add(batchResult.value);
+                }
+            }
+        } finally {
+            helper.endBatch();
+        }
+        result.success(results);
+    }
+
+    /**
+     * 收集批量命令中单条命令的结果
+     */
+    private static final class BatchResult implements Result {
+        private final Map<String, Object> value = new HashMap<>();
+
+        BatchResult(String method) {
+            value.put("method", method);
+        }
+
+        @Override
+        public void success(Object result) {
+            value.put("result", result);
+        }
+
+        @Override
+        public void error(@NonNull String errorCode, String errorMessage, Object errorDetails) {
+            value.put("error", errorCode);
+            value.put("message", errorMessage);
+        }
+
+        @Override
+        public void notImplemented() {
+            value.put("error", "notImplemented");
+        }
+    }
+
+    /**
+     * 解析 start/preload 的播放参数
+     */
+    private static MediaPlayerHelper.MediaInfo mediaInfoOf(Map<String, Object> args, MediaPlayerHelper helper) {
+        String url = (String) args.get("url");
+        String cover = (String) args.get("cover");
+        boolean isLocal = boolOf(args, "isLocal", false);
+        boolean isLocalCover = boolOf(args, "isLocalCover", false);
+        Object titleMaxLinesArg = args.get("titleMaxLines");
+        MediaPlayerHelper.MediaInfo info = new MediaPlayerHelper.MediaInfo((String) args.get("title"), url);
+        info.desc = (String) args.get("desc");
+        info.isAsset = isLocal;
+        info.isAuto = boolOf(args, "isAuto", false);
+        info.titleMaxLines = titleMaxLinesArg == null ? 1 : ((Number) titleMaxLinesArg).intValue();
+        info.showPreviousButton = boolOf(args, "showPreviousButton", false);
+        info.showNextButton = boolOf(args, "showNextButton", true);
+        info.showStopButton = boolOf(args, "showStopButton", true);
+        info.embeddedCover = boolOf(args, "embeddedCover", false);
+        Object mirrors = args.get("mirrors");
+        if (mirrors instanceof List) {
+            for (Object mirror : (List<?>) mirrors) {
+                if (mirror instanceof String) info.mirrors.add((String) mirror);
+            }
+        }
+        Object variants = args.get("variants");
+        if (variants instanceof List) {
+            for (Object item : (List<?>) variants) {
+                if (!(item instanceof Map)) continue;
+                Object variantUrl = ((Map<?, ?>) item).get("url");
+                Object bitrate = ((Map<?, ?>) item).get("bitrate");
+                if (variantUrl instanceof String && bitrate instanceof Number) {
+                    info.variants.add(new MediaPlayerHelper.Variant((String) variantUrl, ((Number) bitrate).intValue()));
+                }
+            }
+        }
+        if (isLocal) {
+            if (flutterAssets != null) {
+                info.url = AudioManagerPlugin.flutterAssets.getAssetFilePathByName(url);
+            }
+        }
+        info.cover = cover;
+        if (isLocalCover) {
+            if (flutterAssets != null) {
+                if (helper.isDataDirFile(cover)) {
+                    info.cover = cover;
+                } else {
+                    info.cover = AudioManagerPlugin.flutterAssets.getAssetFilePathByName(cover);
+                }
+            }
+        }
+        return info;
+    }
+
+    private static boolean boolOf(Map<String, Object> args, String key, boolean fallback) {
+        Object value = args.get(key);
+        return value instanceof Boolean ? (Boolean) value : fallback;
+    }
+
     @Override
     public void onDetachedFromEngine(@NonNull FlutterPluginBinding binding) {
-        if (volumeChangeObserver != null) {
-            volumeChangeObserver.unregisterReceiver();
-            volumeChangeObserver = null;
+        if (instance.volumeChangeObserver != null) {
+            instance.volumeChangeObserver.unregisterReceiver();
+            instance.volumeChangeObserver = null;
         }
         instance.channel = null;
     }
@@ -0,0 +1,124 @@
+package cc.dync.audio_manager;
+
+import android.media.MediaDataSource;
+import android.os.Build;
+
+import androidx.annotation.RequiresApi;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.net.HttpURLConnection;
+
+/**
+ * 先读本地头部缓存、再接网络的数据源
+ * 头部范围内的读取全部来自本地文件，起播不等网络；越过头部后按读取位置发起 Range 请求，
+ * 顺序读取复用同一个响应流，发生跳转时才重新请求；网络读取计入吞吐估计。
+ * Range 请求带上缓存时的校验值作为 If-Range，资源已变化（返回整个新文件或总长度不符）时丢弃头部缓存并报错，
+ * 由错误恢复重新准备，届时直接走网络
+ */
+@RequiresApi(api = Build.VERSION_CODES.M)
+final class CachingDataSource extends MediaDataSource {
+    private final String url;
+    private final MediaCache.Head cached;
+    private final RandomAccessFile head;
+    private final long headLength;
+    private final long total;
+
+    private HttpURLConnection connection;
+    private InputStream stream;
+    private long streamPosition = -1;
+    private final ThroughputEstimator.Meter meter = new ThroughputEstimator.Meter();
+
+    CachingDataSource(String url, MediaCache.Head cached) throws IOException {
+        this.url = url;
+        this.cached = cached;
+        this.head = new RandomAccessFile(cached.file, "r");
+        this.headLength = cached.length;
+        this.total = cached.total;
+    }
+
+    @Override
+    public synchronized int readAt(long position, byte[] buffer, int offset, int size) throws IOException {
+        if (size == 0) return 0;
+        if (position >= total) return -1;
+        if (position < headLength) {
+            head.seek(cached.offset + position);
+            return head.read(buffer, offset, (int) Math.min(size, headLength - position));
+        }
+        if (stream == null || streamPosition != position) openAt(position);
+        // 只计 read 阻塞的时间，播放器读满缓冲后的空闲不算进吞吐
+        long begin = System.nanoTime();
+        int read = stream.read(buffer, offset, size);
+        meter.add(read, System.nanoTime() - begin);
+        if (read > 0) streamPosition += read;
+        return read;
+    }
+
+    private void openAt(long position) throws IOException {
+        closeStream();
+        connection = NetworkPool.open(url);
+        connection.setRequestProperty("Range", "bytes=" + position + "-");
+        if (!cached.validator.isEmpty()) connection.setRequestProperty("If-Range", cached.validator);
+        int code = connection.getResponseCode();
+        if (!sameResource(code)) {
+            closeStream();
+            MediaCache.drop(cached);
+            throw new IOException("resource changed since its head was cached");
+        }
+        stream = connection.getInputStream();
+        if (code == HttpURLConnection.HTTP_OK) {
+            // 服务端不支持 Range，只能从头跳过
+            long skipped = 0;
+            while (skipped < position) {
+                long step = stream.skip(position - skipped);
+                if (step <= 0) throw new IOException("skip failed at " + skipped);
+                skipped += step;
+            }
+        } else if (code != HttpURLConnection.HTTP_PARTIAL) {
+            throw new IOException("unexpected response " + code);
+        }
+        streamPosition = position;
+    }
+
+    /**
+     * 响应是否仍是缓存头部时的那份资源。200 既可能是 If-Range 不匹配，也可能是服务端不支持 Range，
+     * 按校验值与长度区分
+     */
+    private boolean sameResource(int code) {
+        if (code == HttpURLConnection.HTTP_PARTIAL) {
+            return MediaCache.totalLength(connection, code) == total;
+        }
+        if (code == HttpURLConnection.HTTP_OK) {
+            return cached.validator.equals(MediaCache.validatorOf(connection))
+                    && connection.getContentLengthLong() == total;
+        }
+        return true;
+    }
+
+    private void closeStream() {
+        if (stream != null) {
+            try {
+                stream.close();
+            } catch (IOException ignored) {
+            }
+            stream = null;
+        }
+        if (connection != null) {
+            connection.disconnect();
+            connection = null;
+        }
+        streamPosition = -1;
+    }
+
+    @Override
+    public long getSize() {
+        return total;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        closeStream();
+        head.close();
+    }
+}
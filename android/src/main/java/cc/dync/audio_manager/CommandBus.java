@@ -0,0 +1,70 @@
+package cc.dync.audio_manager;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 进程内命令总线
+ * 媒体会话回调与媒体按键直接投递到播放线程（主线程），不再绕一圈 sendBroadcast 经过 system_server。
+ * 只有通知栏按钮这类必须走 PendingIntent 的入口仍由广播接收器转进来。
+ * 同时统计从按键发生（或命令到达）到播放器处理的耗时
+ */
+final class CommandBus {
+    private static final Handler handler = new Handler(Looper.getMainLooper());
+
+    private static MediaPlayerService.ServiceEvents target;
+
+    private static int count = 0;
+    private static long lastLatencyMs = 0;
+    private static long maxLatencyMs = 0;
+    private static long totalLatencyMs = 0;
+
+    private CommandBus() {
+    }
+
+    static void setTarget(MediaPlayerService.ServiceEvents target) {
+        CommandBus.target = target;
+    }
+
+    static void dispatch(MediaPlayerService.Events event) {
+        dispatch(event, 0);
+    }
+
+    /**
+     * @param inputUptimeMs 输入事件发生时间（SystemClock.uptimeMillis 时基，如 KeyEvent.getEventTime），0 表示以到达时间计
+     */
+    static void dispatch(MediaPlayerService.Events event, long inputUptimeMs) {
+        final long since = inputUptimeMs > 0 ? inputUptimeMs : SystemClock.uptimeMillis();
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            deliver(event, since);
+        } else {
+            handler.post(() -> deliver(event, since));
+        }
+    }
+
+    private static void deliver(MediaPlayerService.Events event, long since) {
+        if (target == null) return;
+        target.onEvents(event);
+        lastLatencyMs = SystemClock.uptimeMillis() - since;
+        maxLatencyMs = Math.max(maxLatencyMs, lastLatencyMs);
+        totalLatencyMs += lastLatencyMs;
+        count++;
+        Diagnostics.timing("command_ms", lastLatencyMs, event.ordinal());
+    }
+
+    /**
+     * 命令处理统计，包含处理本身的耗时（即到达音频输出前的全部本地开销）
+     */
+    static Map<String, Object> stats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("commands", count);
+        stats.put("lastCommandLatencyMs", lastLatencyMs);
+        stats.put("maxCommandLatencyMs", maxLatencyMs);
+        stats.put("avgCommandLatencyMs", count == 0 ? 0 : totalLatencyMs / count);
+        return stats;
+    }
+}
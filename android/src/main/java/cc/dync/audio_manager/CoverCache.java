@@ -0,0 +1,98 @@
+package cc.dync.audio_manager;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+
+/**
+ * 封面磁盘缓存
+ * 以 url（内嵌封面为文件身份）哈希为文件名保存图片字节，通知栏更新与预取共用；总量超过上限时按最近使用时间淘汰
+ */
+final class CoverCache {
+    private static final String TAG = "CoverCache";
+    private static final String DIR_NAME = "audio_manager_covers";
+    private static final long MAX_BYTES = 16L * 1024 * 1024;
+
+    private CoverCache() {
+    }
+
+    private static File dir(Context context) {
+        File dir = new File(context.getCacheDir(), DIR_NAME);
+        //noinspection ResultOfMethodCallIgnored
+        dir.mkdirs();
+        return dir;
+    }
+
+    static File fileFor(Context context, String key) {
+        return new File(dir(context), Long.toHexString(ResumeStore.hash(key)));
+    }
+
+    /**
+     * 已缓存时返回文件，否则返回 null
+     */
+    static File get(Context context, String key) {
+        if (key == null) return null;
+        File file = fileFor(context, key);
+        if (file.length() == 0) return null;
+        //noinspection ResultOfMethodCallIgnored
+        file.setLastModified(System.currentTimeMillis());
+        return file;
+    }
+
+    /**
+     * 取得封面文件，未缓存时下载（阻塞，需在后台线程调用），失败返回 null
+     */
+    static File fetch(Context context, String url) {
+        File cached = get(context, url);
+        if (cached != null) return cached;
+        if (url == null || !url.startsWith("http")) return null;
+        File target = fileFor(context, url);
+        File tmp = null;
+        try {
+            // 预取与通知栏可能同时取同一封面，各写各的临时文件，rename 后总是完整的一份
+            tmp = File.createTempFile(target.getName(), ".tmp", target.getParentFile());
+            HttpURLConnection connection = NetworkPool.open(url);
+            long written = 0;
+            try (InputStream in = connection.getInputStream();
+                 OutputStream out = new FileOutputStream(tmp)) {
+                byte[] buffer = new byte[16 * 1024];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, read);
+                    written += read;
+                }
+            }
+            // 缓存命中只看文件非空，截断的图片一旦落盘就会一直被使用
+            long expected = connection.getContentLengthLong();
+            if (expected >= 0 && written != expected) throw new IOException("truncated " + written + "/" + expected);
+            if (!tmp.renameTo(target)) throw new IOException("rename failed");
+            trim(context);
+            return target;
+        } catch (IOException e) {
+            Diagnostics.log(Log.DEBUG, TAG, "fetch failed: %s", e);
+            //noinspection ResultOfMethodCallIgnored
+            if (tmp != null) tmp.delete();
+            return null;
+        }
+    }
+
+    /**
+     * 写入已有的图片字节（如从音频中取出的内嵌封面），失败返回 null
+     */
+    static File put(Context context, String key, byte[] bytes) {
+        File target = fileFor(context, key);
+        if (!DiskFiles.writeAtomically(TAG, target, out -> out.write(bytes))) return null;
+        trim(context);
+        return target;
+    }
+
+    private static void trim(Context context) {
+        DiskFiles.trim(dir(context), file -> !file.getName().endsWith(".tmp"), MAX_BYTES);
+    }
+}
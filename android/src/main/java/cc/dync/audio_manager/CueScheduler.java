@@ -0,0 +1,167 @@
+package cc.dync.audio_manager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 提示点与 A-B 循环
+ * 只负责计算：给定当前进度返回下一个到期时间，播放器据此只设置一个精确定时，
+ * 而不是按固定间隔轮询进度；定时唤醒后由 onWake 决定补足等待、触发提示点还是跳回 A
+ */
+final class CueScheduler {
+    static final long TOLERANCE_MS = 5;//提前唤醒的容差
+
+    static final class Cue {
+        final String id;
+        final long timeMs;
+
+        Cue(String id, long timeMs) {
+            this.id = id;
+            this.timeMs = timeMs;
+        }
+    }
+
+    /**
+     * 一次定时唤醒的处理结果
+     */
+    static final class Wake {
+        final List<Cue> fired;//到期的提示点，按时间顺序
+        final long retryMs;//提前唤醒时还需等待的时长，已处理为 -1
+        final boolean loopBack;//到达循环终点 B，需跳回 A
+
+        Wake(List<Cue> fired, long retryMs, boolean loopBack) {
+            this.fired = fired;
+            this.retryMs = retryMs;
+            this.loopBack = loopBack;
+        }
+    }
+
+    private final TreeMap<Long, List<String>> cues = new TreeMap<>();//时间 -> 提示点 id
+    private final Map<String, Long> cueTimes = new HashMap<>();
+    private long loopStart = -1;
+    private long loopEnd = -1;
+
+    /**
+     * 添加一次性提示点，同 id 覆盖旧的时间
+     */
+    void addCue(String id, long timeMs) {
+        removeCue(id);
+        long time = Math.max(0, timeMs);
+        List<String> ids = cues.get(time);
+        if (ids == null) {
+            ids = new ArrayList<>(1);
+            cues.put(time, ids);
+        }
+        ids.add(id);
+        cueTimes.put(id, time);
+    }
+
+    boolean removeCue(String id) {
+        Long time = cueTimes.remove(id);
+        if (time == null) return false;
+        List<String> ids = cues.get(time);
+        if (ids != null) {
+            ids.remove(id);
+            if (ids.isEmpty()) cues.remove(time);
+        }
+        return true;
+    }
+
+    /**
+     * 设置 A-B 循环，end 不大于 start 时取消循环
+     */
+    void setLoop(long startMs, long endMs) {
+        if (startMs < 0 || endMs <= startMs) {
+            loopStart = -1;
+            loopEnd = -1;
+        } else {
+            loopStart = startMs;
+            loopEnd = endMs;
+        }
+    }
+
+    boolean hasLoop() {
+        return loopEnd > 0;
+    }
+
+    long loopStart() {
+        return loopStart;
+    }
+
+    long loopEnd() {
+        return loopEnd;
+    }
+
+    boolean isEmpty() {
+        return cues.isEmpty() && !hasLoop();
+    }
+
+    /**
+     * 清除全部提示点与循环（切换曲目时调用）
+     */
+    void clear() {
+        cues.clear();
+        cueTimes.clear();
+        setLoop(-1, -1);
+    }
+
+    /**
+     * 进度 positionMs 之后（含）最近的到期时间：下一个提示点或循环终点 B，没有返回 -1。
+     * 进度已越过 B（拖动到循环区间之后）时循环暂不生效
+     */
+    long nextDue(long positionMs) {
+        Long cue = cues.ceilingKey(positionMs);
+        long due = cue == null ? -1 : cue;
+        if (hasLoop() && positionMs < loopEnd && (due < 0 || loopEnd < due)) due = loopEnd;
+        return due;
+    }
+
+    /**
+     * 从进度 positionMs 到下一个到期点的定时时长，按倍速换算为实际毫秒；没有到期点返回 -1
+     */
+    long delayMs(long positionMs, float speed) {
+        long due = nextDue(positionMs);
+        if (due < 0) return -1;
+        return Math.max(0, (long) ((due - positionMs) / speed));
+    }
+
+    /**
+     * 定时唤醒：anchorMs 为设置定时时的进度，positionMs 为当前进度。
+     * 距到期点超出容差（定时器或进度粒度导致提前唤醒）时只给出剩余时长；
+     * 否则取出 [anchorMs, 当前进度] 内的提示点，并判断是否到达 B。没有到期点返回 null
+     */
+    Wake onWake(long anchorMs, long positionMs, float speed) {
+        long due = nextDue(anchorMs);
+        if (due < 0) return null;
+        if (positionMs < due - TOLERANCE_MS) {
+            return new Wake(Collections.emptyList(), Math.max(1, (long) ((due - positionMs) / speed)), false);
+        }
+        List<Cue> fired = take(anchorMs, Math.max(positionMs, due));
+        boolean loopBack = hasLoop() && anchorMs < loopEnd && positionMs >= loopEnd - TOLERANCE_MS;
+        return new Wake(fired, -1, loopBack);
+    }
+
+    /**
+     * 取出并移除 [fromMs, toMs] 区间内的提示点（按时间顺序）
+     */
+    List<Cue> take(long fromMs, long toMs) {
+        List<Cue> due = new ArrayList<>();
+        if (toMs < fromMs) return due;
+        Iterator<Map.Entry<Long, List<String>>> iterator =
+                cues.subMap(fromMs, true, toMs, true).entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Long, List<String>> entry = iterator.next();
+            for (String id : entry.getValue()) {
+                due.add(new Cue(id, entry.getKey()));
+                cueTimes.remove(id);
+            }
+            iterator.remove();
+        }
+        return due;
+    }
+}
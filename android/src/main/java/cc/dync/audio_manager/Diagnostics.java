@@ -0,0 +1,119 @@
+package cc.dync.audio_manager;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 插件诊断日志
+ * 1. logcat 输出按级别过滤，低于阈值直接返回；参数为基本类型的重载不装箱，格式化推迟到确认输出之后，
+ * 因此关闭时进度、缓冲等高频路径不产生任何对象
+ * 2. 状态切换、错误、耗时等关键事件始终写入预分配的环形缓冲（定长基本类型数组，只存常量或已有字符串的引用），
+ * 生产环境也可常开，出问题时通过通道导出最近 CAPACITY 条用于排查
+ */
+final class Diagnostics {
+    private static final int CAPACITY = 512;
+
+    static final int EVENT_STATE = 1;//label: 播放器 id, a: 原状态, b: 新状态
+    static final int EVENT_ERROR = 2;//label: 错误信息
+    static final int EVENT_TIMING = 3;//label: 耗时项名称, a/b: 数值
+
+    private static volatile int level = Log.INFO;
+
+    private static final long[] times = new long[CAPACITY];
+    private static final int[] events = new int[CAPACITY];
+    private static final String[] labels = new String[CAPACITY];
+    private static final long[] firsts = new long[CAPACITY];
+    private static final long[] seconds = new long[CAPACITY];
+    private static int cursor = 0;
+    private static long total = 0;
+
+    private Diagnostics() {
+    }
+
+    /**
+     * 设置 logcat 输出阈值（android.util.Log 级别），环形缓冲不受影响
+     */
+    static void setLevel(int priority) {
+        level = priority;
+    }
+
+    static boolean isLoggable(int priority) {
+        return priority >= level;
+    }
+
+    static void log(int priority, String tag, String message) {
+        if (priority < level) return;
+        Log.println(priority, tag, message);
+    }
+
+    static void log(int priority, String tag, String format, long a) {
+        if (priority < level) return;
+        Log.println(priority, tag, String.format(Locale.US, format, a));
+    }
+
+    static void log(int priority, String tag, String format, long a, long b) {
+        if (priority < level) return;
+        Log.println(priority, tag, String.format(Locale.US, format, a, b));
+    }
+
+    static void log(int priority, String tag, String format, Object a) {
+        if (priority < level) return;
+        Log.println(priority, tag, String.format(Locale.US, format, a));
+    }
+
+    static void state(String playerId, int from, int to) {
+        record(EVENT_STATE, playerId, from, to);
+        log(Log.VERBOSE, playerId, "state %d -> %d", from, to);
+    }
+
+    static void error(String message) {
+        record(EVENT_ERROR, message, 0, 0);
+    }
+
+    static void timing(String name, long a, long b) {
+        record(EVENT_TIMING, name, a, b);
+    }
+
+    private static synchronized void record(int event, String label, long a, long b) {
+        times[cursor] = SystemClock.elapsedRealtime();
+        events[cursor] = event;
+        labels[cursor] = label;
+        firsts[cursor] = a;
+        seconds[cursor] = b;
+        cursor = (cursor + 1) % CAPACITY;
+        total++;
+    }
+
+    /**
+     * 按时间顺序导出缓冲内容，每条一行：elapsedRealtime(ms) 事件 标签 数值。
+     * 格式化只在导出时进行
+     */
+    static synchronized List<String> dump() {
+        int count = (int) Math.min(total, CAPACITY);
+        List<String> lines = new ArrayList<>(count);
+        int start = total > CAPACITY ? cursor : 0;
+        for (int i = 0; i < count; i++) {
+            int slot = (start + i) % CAPACITY;
+            lines.add(String.format(Locale.US, "%d %s %s %d %d", times[slot],
+                    eventName(events[slot]), labels[slot], firsts[slot], seconds[slot]));
+        }
+        return lines;
+    }
+
+    private static String eventName(int event) {
+        switch (event) {
+            case EVENT_STATE:
+                return "state";
+            case EVENT_ERROR:
+                return "error";
+            case EVENT_TIMING:
+                return "timing";
+            default:
+                return "unknown";
+        }
+    }
+}
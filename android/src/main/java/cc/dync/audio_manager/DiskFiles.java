@@ -0,0 +1,65 @@
+package cc.dync.audio_manager;
+
+import android.util.Log;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * 缓存与统计文件共用的落盘工具
+ */
+final class DiskFiles {
+
+    interface Body {
+        void writeTo(DataOutputStream out) throws IOException;
+    }
+
+    private DiskFiles() {
+    }
+
+    /**
+     * 写同目录下唯一的临时文件后 rename 覆盖 target，失败时记日志并删掉临时文件；应在调用方的写线程上执行
+     *
+     * @return 是否写入成功
+     */
+    static boolean writeAtomically(String tag, File target, Body body) {
+        File tmp = null;
+        try {
+            tmp = File.createTempFile(target.getName(), ".tmp", target.getParentFile());
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+                body.writeTo(out);
+            }
+            if (!tmp.renameTo(target)) throw new IOException("rename failed");
+            return true;
+        } catch (IOException e) {
+            Diagnostics.log(Log.WARN, tag, "save failed: %s", e);
+            //noinspection ResultOfMethodCallIgnored
+            if (tmp != null) tmp.delete();
+            return false;
+        }
+    }
+
+    /**
+     * dir 下符合 filter 的文件总量超过 maxBytes 时，按修改时间从旧到新删除
+     */
+    static void trim(File dir, FileFilter filter, long maxBytes) {
+        File[] files = dir.listFiles(filter);
+        if (files == null) return;
+        long size = 0;
+        for (File file : files) size += file.length();
+        if (size <= maxBytes) return;
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+        for (File file : files) {
+            if (size <= maxBytes) break;
+            size -= file.length();
+            //noinspection ResultOfMethodCallIgnored
+            file.delete();
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package cc.dync.audio_manager;
+
+import android.content.Context;
+import android.content.res.AssetFileDescriptor;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.media.MediaMetadataRetriever;
+import android.util.Log;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 本地与 asset 音频的内嵌封面（ID3 APIC / MP4 covr）
+ * 用 MediaMetadataRetriever 取出后按 TARGET_PX 采样解码，缩小后的图写入封面缓存，
+ * 键为文件身份（路径 + 修改时间 + 大小，asset 为路径 + 安装包时间），文件变了自然失效。
+ * 之后同一文件的通知封面只读缓存里的小图，不再解析音频。都需在后台线程调用
+ */
+final class EmbeddedArtwork {
+    private static final String TAG = "EmbeddedArtwork";
+    private static final int TARGET_PX = 512;//通知大图与锁屏封面够用
+    private static final int JPEG_QUALITY = 90;
+
+    // 确认没有内嵌封面的文件，进程内不再重复解析
+    private static final Set<String> missing = ConcurrentHashMap.newKeySet();
+
+    private EmbeddedArtwork() {
+    }
+
+    private static boolean fromAssets(String path, boolean isAsset) {
+        return isAsset && !path.startsWith("/");
+    }
+
+    private static String localPath(String url) {
+        return url.startsWith("file://") ? url.substring("file://".length()) : url;
+    }
+
+    static String key(Context context, String url, boolean isAsset) {
+        if (fromAssets(url, isAsset)) {
+            return "embedded:asset:" + url + ":" + new File(context.getApplicationInfo().sourceDir).lastModified();
+        }
+        File file = new File(localPath(url));
+        return "embedded:" + file.getPath() + ":" + file.lastModified() + ":" + file.length();
+    }
+
+    /**
+     * 取得缩放后的内嵌封面，没有返回 null
+     */
+    static Bitmap load(Context context, String url, boolean isAsset) {
+        String key = key(context, url, isAsset);
+        File cached = CoverCache.get(context, key);
+        if (cached != null) return BitmapFactory.decodeFile(cached.getPath());
+        if (missing.contains(key)) return null;
+        byte[] picture = extract(context, url, isAsset);
+        if (picture == null) {
+            missing.add(key);
+            return null;
+        }
+        return store(context, key, picture);
+    }
+
+    /**
+     * 已拿到封面字节时（如 probe 顺带取出）直接缩放入缓存，已缓存则跳过
+     */
+    static void remember(Context context, String url, boolean isAsset, byte[] picture) {
+        String key = key(context, url, isAsset);
+        if (CoverCache.get(context, key) == null) store(context, key, picture);
+    }
+
+    private static byte[] extract(Context context, String url, boolean isAsset) {
+        MediaMetadataRetriever retriever = new MediaMetadataRetriever();
+        try {
+            if (fromAssets(url, isAsset)) {
+                try (AssetFileDescriptor descriptor = context.getAssets().openFd(url)) {
+                    retriever.setDataSource(descriptor.getFileDescriptor(), descriptor.getStartOffset(), descriptor.getLength());
+                }
+            } else {
+                retriever.setDataSource(localPath(url));
+            }
+            return retriever.getEmbeddedPicture();
+        } catch (Exception e) {
+            Diagnostics.log(Log.DEBUG, TAG, "extract failed: %s", e);
+            return null;
+        } finally {
+            try {
+                retriever.release();
+            } catch (Exception ignored) {
+            }
+        }
+    }
+
+    /**
+     * 先只读尺寸，按 2 的幂采样到不小于 TARGET_PX 再解码，避免把几千像素的原图整张读进内存
+     */
+    private static Bitmap store(Context context, String key, byte[] picture) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeByteArray(picture, 0, picture.length, options);
+        int sample = 1;
+        while (options.outWidth / (sample * 2) >= TARGET_PX && options.outHeight / (sample * 2) >= TARGET_PX) {
+            sample *= 2;
+        }
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = sample;
+        Bitmap bitmap = BitmapFactory.decodeByteArray(picture, 0, picture.length, options);
+        if (bitmap == null) return null;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (bitmap.compress(Bitmap.CompressFormat.JPEG, JPEG_QUALITY, out)) {
+            CoverCache.put(context, key, out.toByteArray());
+        }
+        return bitmap;
+    }
+}
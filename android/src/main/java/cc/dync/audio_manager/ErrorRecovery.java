@@ -0,0 +1,113 @@
+package cc.dync.audio_manager;
+
+import android.media.MediaPlayer;
+import android.os.SystemClock;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * 播放错误恢复策略
+ * 网络类错误（IO、超时、媒体服务重启）按指数退避加随机抖动重试，最多 MAX_ATTEMPTS 次；
+ * 格式不支持、文件损坏等重试无意义的错误直接上报。恢复成功后稳定播放 STABLE_MS 以上，
+ * 下次出错重新从第一次退避开始计数。每个播放器一个实例，统计按进程汇总
+ */
+final class ErrorRecovery {
+    private static final int MAX_ATTEMPTS = 5;
+    private static final long BASE_DELAY_MS = 1_000;
+    private static final long MAX_DELAY_MS = 16_000;
+    private static final long STABLE_MS = 60_000;
+    /**
+     * 部分机型网络中断时只报 MEDIA_ERROR_SYSTEM，但格式问题也会报它，只在准备完成过之后才当作网络错误
+     */
+    private static final int MEDIA_ERROR_SYSTEM = Integer.MIN_VALUE;
+
+    private static final Random random = new Random();
+    private static int attemptCount = 0;
+    private static int recoveredCount = 0;
+    private static int gaveUpCount = 0;
+    private static long totalRecoveryMs = 0;
+    private static long lastRecoveryMs = 0;
+
+    private int attempts = 0;
+    private long startedAt = 0;//本轮恢复开始时间，0 表示没有在恢复
+    private long recoveredAt = 0;
+
+    static boolean isTransient(int what, int extra, boolean wasPrepared) {
+        if (extra == MediaPlayer.MEDIA_ERROR_UNSUPPORTED || extra == MediaPlayer.MEDIA_ERROR_MALFORMED) return false;
+        if (what == MediaPlayer.MEDIA_ERROR_NOT_VALID_FOR_PROGRESSIVE_PLAYBACK) return false;
+        if (what == MediaPlayer.MEDIA_ERROR_SERVER_DIED) return true;
+        if (extra == MediaPlayer.MEDIA_ERROR_IO || extra == MediaPlayer.MEDIA_ERROR_TIMED_OUT) return true;
+        return extra == MEDIA_ERROR_SYSTEM && wasPrepared;
+    }
+
+    boolean isRecovering() {
+        return startedAt > 0;
+    }
+
+    int attempts() {
+        return attempts;
+    }
+
+    /**
+     * 下一次重试前的等待时长，次数用尽返回 -1
+     */
+    long nextDelay() {
+        long now = SystemClock.elapsedRealtime();
+        if (startedAt == 0) {
+            if (recoveredAt > 0 && now - recoveredAt > STABLE_MS) attempts = 0;
+            startedAt = now;
+        }
+        if (attempts >= MAX_ATTEMPTS) {
+            synchronized (ErrorRecovery.class) {
+                gaveUpCount++;
+            }
+            reset();
+            return -1;
+        }
+        long ceiling = Math.min(MAX_DELAY_MS, BASE_DELAY_MS << attempts);
+        attempts++;
+        synchronized (ErrorRecovery.class) {
+            attemptCount++;
+        }
+        // 抖动取 [ceiling/2, ceiling)，多个客户端同时断网时错开重连
+        return ceiling / 2 + (long) (random.nextDouble() * ceiling / 2);
+    }
+
+    /**
+     * 重新准备完成，本轮恢复结束
+     */
+    void onRecovered() {
+        if (startedAt == 0) return;
+        long now = SystemClock.elapsedRealtime();
+        long cost = now - startedAt;
+        startedAt = 0;
+        recoveredAt = now;
+        synchronized (ErrorRecovery.class) {
+            recoveredCount++;
+            totalRecoveryMs += cost;
+            lastRecoveryMs = cost;
+        }
+        Diagnostics.timing("recovery_ms", cost, attempts);
+    }
+
+    /**
+     * 换曲或停止时清零
+     */
+    void reset() {
+        attempts = 0;
+        startedAt = 0;
+        recoveredAt = 0;
+    }
+
+    static synchronized Map<String, Object> stats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("recoveryAttempts", attemptCount);
+        stats.put("recoveries", recoveredCount);
+        stats.put("recoveryGiveUps", gaveUpCount);
+        stats.put("recoveryTotalMs", totalRecoveryMs);
+        stats.put("recoveryLastMs", lastRecoveryMs);
+        return stats;
+    }
+}
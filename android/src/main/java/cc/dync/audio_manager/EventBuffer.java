@@ -0,0 +1,91 @@
+package cc.dync.audio_manager;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 方法通道断开期间的事件缓冲
+ * 有界环形队列：进度、缓冲等高频事件按 key 合并只保留最新一条，状态变化逐条保留；
+ * 通道重新连接后按原顺序补发。队列满时先淘汰最早的可合并事件，只有队列里全是状态变化时才丢最早的一条。序号在真正发送时分配，溢出丢弃的事件会在序号上留下空洞，
+ * 并在紧随其后的事件上带出 dropped 数量：引擎重建后新的 isolate 没有上一个序号可比，
+ * 只能靠这个字段得知补发前已有事件丢失。Dart 侧据此判断是否需要重新同步状态
+ */
+final class EventBuffer {
+    static final class Event {
+        final String method;
+        final Object arguments;
+        final String key;//合并 key，为 null 表示不合并
+
+        Event(String method, Object arguments, String key) {
+            this.method = method;
+            this.arguments = arguments;
+            this.key = key;
+        }
+    }
+
+    private final int capacity;
+    private final ArrayDeque<Event> events;
+    private long seq = 0;//最近一次发送的序号
+    private long dropped = 0;//因溢出丢弃、尚未反映到序号上的事件数
+
+    EventBuffer(int capacity) {
+        this.capacity = capacity;
+        this.events = new ArrayDeque<>(capacity);
+    }
+
+    /**
+     * 缓存一条事件
+     */
+    synchronized void add(String method, Object arguments, String key) {
+        if (key != null) {
+            Iterator<Event> iterator = events.iterator();
+            while (iterator.hasNext()) {
+                if (key.equals(iterator.next().key)) {
+                    iterator.remove();
+                    break;
+                }
+            }
+        }
+        if (events.size() >= capacity) evict();
+        events.addLast(new Event(method, arguments, key));
+    }
+
+    private void evict() {
+        Iterator<Event> iterator = events.iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().key != null) {
+                iterator.remove();
+                dropped++;
+                return;
+            }
+        }
+        events.pollFirst();
+        dropped++;
+    }
+
+    /**
+     * 取出全部缓存事件（按产生顺序）
+     */
+    synchronized List<Event> drain() {
+        List<Event> list = new ArrayList<>(events);
+        events.clear();
+        return list;
+    }
+
+    /**
+     * 为即将发送的事件分配序号写入 envelope，之前溢出丢弃的数量计入跳号并写入 dropped
+     */
+    synchronized void stamp(Map<String, Object> envelope) {
+        seq += dropped + 1;
+        envelope.put("seq", seq);
+        if (dropped > 0) {
+            envelope.put("dropped", dropped);
+        } else {
+            envelope.remove("dropped");
+        }
+        dropped = 0;
+    }
+}
@@ -0,0 +1,122 @@
+package cc.dync.audio_manager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * LRC 歌词
+ * 一次解析整篇文档，按时间戳排序后存为两个平行数组，
+ * 播放中按进度二分查找当前行，拖动后同样二分重新定位
+ */
+final class LrcDocument {
+    // [mm:ss] [mm:ss.x] [mm:ss.xx] [mm:ss.xxx]，分隔符兼容 ':'
+    private static final Pattern TIME_TAG = Pattern.compile("\\[(\\d{1,3}):(\\d{1,2})(?:[.:](\\d{1,3}))?]");
+    private static final Pattern OFFSET_TAG = Pattern.compile("\\[offset:\\s*([+-]?\\d+)\\s*]", Pattern.CASE_INSENSITIVE);
+
+    private final long[] times;//毫秒，升序
+    private final String[] lines;
+
+    private LrcDocument(long[] times, String[] lines) {
+        this.times = times;
+        this.lines = lines;
+    }
+
+    /**
+     * 解析 LRC 文本，忽略没有时间标签的行（标题、作者等 ID 标签）
+     *
+     * @return 没有任何歌词行时返回 null
+     */
+    static LrcDocument parse(String text) {
+        if (text == null || text.isEmpty()) return null;
+        long offset = 0;
+        Matcher offsetMatcher = OFFSET_TAG.matcher(text);
+        if (offsetMatcher.find()) {
+            try {
+                offset = Long.parseLong(offsetMatcher.group(1));
+            } catch (NumberFormatException ignored) {
+            }
+        }
+
+        List<Line> parsed = new ArrayList<>();
+        for (String raw : text.split("\\r?\\n|\\r")) {
+            Matcher matcher = TIME_TAG.matcher(raw);
+            List<Long> stamps = new ArrayList<>(1);
+            int end = 0;
+            // 同一行可以有多个时间标签，共用一句歌词
+            while (matcher.find() && matcher.start() == end) {
+                stamps.add(toMillis(matcher) - offset);
+                end = matcher.end();
+            }
+            if (stamps.isEmpty()) continue;
+            String content = raw.substring(end).trim();
+            for (Long stamp : stamps) parsed.add(new Line(Math.max(0, stamp), content));
+        }
+        if (parsed.isEmpty()) return null;
+        // 稳定排序：时间相同的行保持原文顺序
+        Collections.sort(parsed, (a, b) -> Long.compare(a.time, b.time));
+
+        long[] times = new long[parsed.size()];
+        String[] lines = new String[parsed.size()];
+        for (int i = 0; i < times.length; i++) {
+            times[i] = parsed.get(i).time;
+            lines[i] = parsed.get(i).content;
+        }
+        return new LrcDocument(times, lines);
+    }
+
+    private static long toMillis(Matcher matcher) {
+        long minutes = Long.parseLong(matcher.group(1));
+        long seconds = Long.parseLong(matcher.group(2));
+        long millis = 0;
+        String fraction = matcher.group(3);
+        if (fraction != null) {
+            millis = Long.parseLong(fraction);
+            // .x 为十分之一秒，.xx 为百分之一秒
+            if (fraction.length() == 1) millis *= 100;
+            else if (fraction.length() == 2) millis *= 10;
+        }
+        return (minutes * 60 + seconds) * 1000 + millis;
+    }
+
+    int size() {
+        return times.length;
+    }
+
+    long timeAt(int index) {
+        return times[index];
+    }
+
+    String lineAt(int index) {
+        return lines[index];
+    }
+
+    /**
+     * 二分查找进度所在的行：最后一个时间不大于 positionMs 的行，第一行之前返回 -1
+     */
+    int indexAt(long positionMs) {
+        int low = 0, high = times.length - 1, found = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (times[mid] <= positionMs) {
+                found = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return found;
+    }
+
+    private static final class Line {
+        final long time;
+        final String content;
+
+        Line(long time, String content) {
+            this.time = time;
+            this.content = content;
+        }
+    }
+}
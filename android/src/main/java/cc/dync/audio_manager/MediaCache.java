@@ -0,0 +1,174 @@
+package cc.dync.audio_manager;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.net.HttpURLConnection;
+
+/**
+ * 音频头部缓存
+ * 预取的下一首只缓存开头若干字节，播放时由 CachingDataSource 先读本地、读完再接网络 Range 请求，
+ * 因此起播不依赖网络。每个 url 一个文件：int32 magic | int64 资源总长度 | UTF 校验值 | 从 0 开始的连续字节。
+ * 校验值为强 ETag 或 Last-Modified，续接尾部时作为 If-Range 发出，资源变了不会把新尾部接在旧头部后面。
+ * 先写临时文件再 rename，读方不会看到写了一半的缓存；总量超过上限时按最近使用时间淘汰
+ */
+final class MediaCache {
+    private static final String TAG = "MediaCache";
+    private static final String DIR_NAME = "audio_manager_media";
+    private static final String SUFFIX = ".head";
+    private static final int MAGIC = 0x414d4844;
+    private static final long MAX_BYTES = 64L * 1024 * 1024;
+
+    interface Cancel {
+        boolean isCancelled();
+    }
+
+    /**
+     * 已缓存的头部
+     */
+    static final class Head {
+        final File file;
+        final long offset;//数据在文件中的起始位置
+        final long length;//已缓存字节数
+        final long total;//资源总长度
+        final String validator;//取不到时为空串
+
+        Head(File file, long offset, long length, long total, String validator) {
+            this.file = file;
+            this.offset = offset;
+            this.length = length;
+            this.total = total;
+            this.validator = validator;
+        }
+    }
+
+    private MediaCache() {
+    }
+
+    private static File dir(Context context) {
+        File dir = new File(context.getCacheDir(), DIR_NAME);
+        //noinspection ResultOfMethodCallIgnored
+        dir.mkdirs();
+        return dir;
+    }
+
+    private static File fileFor(Context context, String url) {
+        return new File(dir(context), Long.toHexString(ResumeStore.hash(url)) + SUFFIX);
+    }
+
+    /**
+     * 查询 url 的头部缓存，没有或格式不符返回 null
+     */
+    static Head head(Context context, String url) {
+        if (url == null) return null;
+        File file = fileFor(context, url);
+        if (!file.exists()) return null;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            if (raf.readInt() != MAGIC) return null;
+            long total = raf.readLong();
+            String validator = raf.readUTF();
+            long offset = raf.getFilePointer();
+            long length = raf.length() - offset;
+            if (total <= 0 || length <= 0 || length > total) return null;
+            //noinspection ResultOfMethodCallIgnored
+            file.setLastModified(System.currentTimeMillis());
+            return new Head(file, offset, length, total, validator);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 资源已变化，丢弃头部缓存
+     */
+    static void drop(Head head) {
+        Diagnostics.log(Log.DEBUG, TAG, "drop stale head %s", head.file.getName());
+        //noinspection ResultOfMethodCallIgnored
+        head.file.delete();
+    }
+
+    /**
+     * 响应的校验值：强 ETag 优先，其次 Last-Modified，都没有返回空串。
+     * 弱 ETag 不能用于 If-Range
+     */
+    static String validatorOf(HttpURLConnection connection) {
+        String etag = connection.getHeaderField("ETag");
+        if (etag != null && !etag.startsWith("W/")) return etag;
+        String modified = connection.getHeaderField("Last-Modified");
+        return modified != null ? modified : "";
+    }
+
+    /**
+     * 下载 url 的前 bytes 个字节，已有不少于 bytes 的缓存时直接返回
+     */
+    static boolean fetchHead(Context context, String url, long bytes, Cancel cancel) {
+        Head existing = head(context, url);
+        if (existing != null && (existing.length >= bytes || existing.length == existing.total)) return true;
+        File target = fileFor(context, url);
+        File tmp = null;
+        HttpURLConnection connection = null;
+        try {
+            // 同一 url 可能被并发预取，各用各的临时文件
+            tmp = File.createTempFile(target.getName(), ".tmp", target.getParentFile());
+            connection = NetworkPool.open(url);
+            connection.setRequestProperty("Range", "bytes=0-" + (bytes - 1));
+            int code = connection.getResponseCode();
+            long total = totalLength(connection, code);
+            if (total <= 0) return false;
+            long limit = Math.min(bytes, total);
+            try (InputStream in = connection.getInputStream();
+                 RandomAccessFile out = new RandomAccessFile(tmp, "rw")) {
+                out.setLength(0);
+                out.writeInt(MAGIC);
+                out.writeLong(total);
+                out.writeUTF(validatorOf(connection));
+                byte[] buffer = new byte[16 * 1024];
+                long written = 0;
+                while (written < limit) {
+                    if (cancel != null && cancel.isCancelled()) return false;
+                    int read = in.read(buffer, 0, (int) Math.min(buffer.length, limit - written));
+                    if (read == -1) break;
+                    out.write(buffer, 0, read);
+                    written += read;
+                }
+            }
+            if (!tmp.renameTo(target)) throw new IOException("rename failed");
+            trim(context);
+            return true;
+        } catch (IOException e) {
+            Diagnostics.log(Log.DEBUG, TAG, "fetchHead failed: %s", e);
+            return false;
+        } finally {
+            // 只取了头部，连接上还有未读完的数据，不能放回复用池
+            if (connection != null) connection.disconnect();
+            //noinspection ResultOfMethodCallIgnored
+            if (tmp != null) tmp.delete();
+        }
+    }
+
+    /**
+     * 206 从 Content-Range 取总长度，服务端不支持 Range 返回 200 时取 Content-Length
+     */
+    static long totalLength(HttpURLConnection connection, int code) {
+        if (code == HttpURLConnection.HTTP_PARTIAL) {
+            String range = connection.getHeaderField("Content-Range");
+            int slash = range == null ? -1 : range.lastIndexOf('/');
+            if (slash < 0) return -1;
+            try {
+                return Long.parseLong(range.substring(slash + 1).trim());
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+        if (code == HttpURLConnection.HTTP_OK) return connection.getContentLengthLong();
+        return -1;
+    }
+
+    private static void trim(Context context) {
+        DiskFiles.trim(dir(context), file -> file.getName().endsWith(SUFFIX), MAX_BYTES);
+    }
+}
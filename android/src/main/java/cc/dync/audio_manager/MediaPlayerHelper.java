@@ -10,27 +10,32 @@ import android.media.AudioFocusRequest;
 import android.media.AudioManager;
 import android.media.MediaDataSource;
 import android.media.MediaPlayer;
-import android.net.wifi.WifiManager;
 import android.os.Build;
 import android.os.Handler;
 import android.os.Looper;
 import android.os.Message;
 import android.os.PowerManager;
+import android.os.SystemClock;
 import android.util.Log;
 import android.view.SurfaceHolder;
 import android.view.SurfaceView;
 
 import androidx.annotation.RequiresApi;
 
-import java.io.BufferedInputStream;
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.net.HttpURLConnection;
-import java.net.URL;
 import java.nio.file.FileSystems;
 import java.nio.file.Path;
-import java.util.Objects;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * 多媒体播放
@@ -42,16 +47,67 @@ public class MediaPlayerHelper {
     private Holder uiHolder;//UI的容器
     private Context context;
     private MediaInfo mediaInfo = new MediaInfo("title", null);
-    private static MediaPlayerHelper instance;
+    private final String playerId;//播放器标识，由 Dart 侧在每次调用时传入
     private int delaySecondTime = 1000;//进度回调间隔
     private boolean isHolderCreate = false;//SurfaceHolder是否准备好了
-    private WifiManager.WifiLock wifiLock;
+    private boolean fullyBuffered = false;//网络音源已全部缓存到本地，不再需要 wifi 锁
     private String curUrl = "";//当前初始化url
-    private boolean isPrepare = false;
-    private AudioManager audioManager;
-    private AudioFocusRequest audioFocusRequest;
-    private boolean audioFocusGranted = false;
-    private AudioManager.OnAudioFocusChangeListener audioFocusChangeListener;
+    private boolean serviceBinding = false;//已向服务注册回调并发起绑定，整个会话内复用
+    private int state = PlayerState.IDLE;//播放状态，只在主线程经 transition 修改
+    private volatile PlayerState snapshot = PlayerState.INITIAL;//供其他线程无锁读取的只读快照
+    private float speed = 1f;//当前播放速率
+    private int crossfadeMs = 0;//交叉淡入淡出时长，0 表示硬切
+    private MediaInfo nextInfo;//预加载的下一首
+    private boolean isNextPrepare = false;
+    private final PlayQueue queue = new PlayQueue();//原生播放队列，为空时切歌仍交给 Dart
+    private PositionClock clock;//共享内存时钟，Dart 首次请求时才创建
+    private LrcDocument lyrics;//当前曲目的歌词，为空时通知栏显示 desc
+    private int lyricIndex = -1;//通知栏正在显示的歌词行
+    private final CueScheduler cues = new CueScheduler();//提示点与 A-B 循环
+    private long cueAnchor = 0;//上次计算提示点时的进度，到期时触发 [cueAnchor, 当前进度] 内的提示点
+    private boolean resumeEnabled = false;//是否按 url 记录并恢复播放进度
+    private static final int RESUME_TAIL_MS = 5000;//距结尾不足该时长视为已播完，下次从头播放
+    private long sessionSavedAt = 0;//上次写会话快照的时间
+    private static final long SESSION_SAVE_INTERVAL_MS = 5000;//进度类变化的快照节流间隔
+    private int pendingSeekMs = 0;//准备完成后、start() 前跳到的位置（恢复会话或准备中 seek）
+    private float pendingSpeed = 0f;//准备完成并开始播放后应用的倍速（恢复会话或准备中设置）
+    private int restoredQueueIndex = -1;//恢复会话时的队列下标，原生队列尚未同步前提供给 Dart
+    private int stallCount = 0;//STALL_WINDOW_MS 内的卡顿次数
+    private long firstStallAt = 0;
+    private static final long STALL_WINDOW_MS = 60_000;
+    private static final int STALLS_TO_DOWNGRADE = 2;
+    private int lastBufferPercent = -1;//上次缓冲进度回调，用于估算吞吐
+    private long lastBufferAt = 0;
+    private final ErrorRecovery recovery = new ErrorRecovery();
+    private int lastPositionMs = 0;//最近一次确认的进度，出错后播放器给出的进度不可信
+    private int recoverAtMs = 0;//恢复后回到的进度
+    private boolean recoverPlaying = false;//出错前是否在播放（或准备好后要自动播放）
+    private static final long STALL_TIMEOUT_MS = 15_000;//缓冲超过这个时长按网络错误恢复
+
+    /**
+     * 默认播放器标识：未传 playerId 的调用都落到这个播放器上，兼容单实例用法
+     */
+    static final String DEFAULT_PLAYER_ID = "default";
+    // 播放器注册表，按 playerId 区分，每个播放器持有独立的 MediaPlayer、进度定时器与回调
+    private static final Map<String, MediaPlayerHelper> players = new LinkedHashMap<>();
+    // 主播放器：共享的前台服务、通知与 MediaSession 只展示它的状态
+    private static String primaryId = DEFAULT_PLAYER_ID;
+    private static boolean receiverRegistered = false;
+
+    // 音频焦点按进程共享：多个播放器同时发声时只申请一次，全部停止后再释放，
+    // 避免各自的监听器互相抢占导致对方被暂停
+    private static AudioManager audioManager;
+    private static AudioFocusRequest audioFocusRequest;
+    private static boolean audioFocusGranted = false;
+    private static final Set<MediaPlayerHelper> audioFocusHolders = new HashSet<>();
+    private static final AudioManager.OnAudioFocusChangeListener audioFocusChangeListener = focusChange -> {
+        if (focusChange == AudioManager.AUDIOFOCUS_LOSS
+                || focusChange == AudioManager.AUDIOFOCUS_LOSS_TRANSIENT) {
+            for (MediaPlayerHelper helper : new ArrayList<>(audioFocusHolders)) {
+                helper.pause();
+            }
+        }
+    };
 
     static class MediaInfo {
         String title;
@@ -85,11 +141,48 @@ public class MediaPlayerHelper {
         boolean showPreviousButton = false;
         boolean showNextButton = true;
         boolean showStopButton = true;
+        /**
+         * 通知栏封面优先取音频文件的内嵌封面（仅本地与 assets），没有时再用 cover
+         */
+        boolean embeddedCover = false;
+        /**
+         * 同一资源的不同码率，为空时直接播放 url；url 仍作为续播、离线等的标识
+         */
+        List<Variant> variants = new ArrayList<>();
+        int variant = -1;//当前选用的码率下标，-1 表示播放 url
+        /**
+         * url 的镜像地址，没有选用码率时参与竞速
+         */
+        List<String> mirrors = new ArrayList<>();
+        String mirror;//竞速胜出的地址
 
         MediaInfo(String title, String url) {
             this.title = title;
             this.url = url;
         }
+
+        Variant currentVariant() {
+            return variant >= 0 && variant < variants.size() ? variants.get(variant) : null;
+        }
+
+        /**
+         * 实际交给播放器的地址：选用的码率 > 胜出的镜像 > url
+         */
+        String playUrl() {
+            Variant current = currentVariant();
+            if (current != null) return current.url;
+            return mirror != null ? mirror : url;
+        }
+    }
+
+    static final class Variant {
+        final String url;
+        final int bitrate;//bit/s
+
+        Variant(String url, int bitrate) {
+            this.url = url;
+            this.bitrate = bitrate;
+        }
     }
 
     /**
@@ -102,6 +195,9 @@ public class MediaPlayerHelper {
         playOrPause("playOrPause"),
         stop("stop"),
         ended("播放结束"),
+        crossfade("交叉淡入下一首"),
+        queueIndex("队列切换"),
+        cue("提示点到达"),
         error("播放错误"),
         FORMAT_NOT_SUPPORT("音视频格式可能不支持"),
         INFO("播放开始"),
@@ -126,16 +222,120 @@ public class MediaPlayerHelper {
     }
 
     /**
-     * 获得静态类
+     * 获得默认播放器
      *
      * @param context 引用
      * @return 实例
      */
-    public static synchronized MediaPlayerHelper getInstance(Context context) {
-        if (instance == null) {
-            instance = new MediaPlayerHelper(context);
+    public static MediaPlayerHelper getInstance(Context context) {
+        return getInstance(context, DEFAULT_PLAYER_ID);
+    }
+
+    /**
+     * 获得指定标识的播放器，不存在时创建
+     *
+     * @param context  引用
+     * @param playerId 播放器标识
+     * @return 实例
+     */
+    public static synchronized MediaPlayerHelper getInstance(Context context, String playerId) {
+        if (playerId == null) playerId = DEFAULT_PLAYER_ID;
+        MediaPlayerHelper helper = players.get(playerId);
+        if (helper == null) {
+            helper = new MediaPlayerHelper(context, playerId);
+            players.put(playerId, helper);
         }
-        return instance;
+        return helper;
+    }
+
+    /**
+     * 当前主播放器（通知与锁屏展示的对象），可能为 null
+     */
+    static synchronized MediaPlayerHelper getPrimary() {
+        return players.get(primaryId);
+    }
+
+    /**
+     * 切换主播放器：原主播放器不再更新通知，新主播放器接管服务绑定并刷新通知
+     *
+     * @param context  引用
+     * @param playerId 播放器标识
+     */
+    static void setPrimary(Context context, String playerId) {
+        MediaPlayerHelper previous;
+        MediaPlayerHelper next;
+        synchronized (MediaPlayerHelper.class) {
+            if (playerId == null || playerId.equals(primaryId)) return;
+            previous = players.get(primaryId);
+            next = getInstance(context, playerId);
+            primaryId = playerId;
+        }
+        if (previous != null) {
+            previous.service = null;
+            previous.serviceBinding = false;
+        }
+        if (next.uiHolder.player != null) next.bindService();
+    }
+
+    /**
+     * 已创建的播放器标识，不会触发创建
+     */
+    static synchronized List<String> playerIds() {
+        return new ArrayList<>(players.keySet());
+    }
+
+    /**
+     * 主播放器是否正在持有播放资源（进程存活、会话未丢失）
+     */
+    static synchronized boolean hasActiveSession() {
+        MediaPlayerHelper primary = players.get(primaryId);
+        return primary != null && primary.uiHolder.player != null;
+    }
+
+    /**
+     * 进程被回收后仅凭会话快照重建播放，不依赖 Flutter 引擎：
+     * 用快照中的地址与文案准备播放，准备完成前跳到快照进度并恢复倍速
+     *
+     * @return 是否有可恢复的会话
+     */
+    static boolean restoreSession(Context context) {
+        SessionStore.Session session = SessionStore.load(context);
+        if (session == null) return false;
+        MediaPlayerHelper helper = getInstance(context.getApplicationContext());
+        MediaInfo info = new MediaInfo(session.title, session.url);
+        info.desc = session.desc;
+        info.cover = session.cover;
+        info.isAsset = session.isAsset;
+        info.isAuto = true;
+        helper.restoredQueueIndex = session.queueIndex;
+        try {
+            helper.start(info, session.position, session.speed);
+            return true;
+        } catch (Exception e) {
+            Log.e(TAG, "restoreSession: ", e);
+            return false;
+        }
+    }
+
+    /**
+     * 释放所有播放器，用于任务被移除等进程级清理
+     */
+    static void releaseAll() {
+        List<MediaPlayerHelper> all;
+        synchronized (MediaPlayerHelper.class) {
+            all = new ArrayList<>(players.values());
+        }
+        for (MediaPlayerHelper helper : all) {
+            helper.release();
+        }
+    }
+
+    String getPlayerId() {
+        return playerId;
+    }
+
+    boolean isPrimary() {
+        return playerId.equals(primaryId);
     }
 
     /**
@@ -155,10 +355,11 @@ public class MediaPlayerHelper {
      */
     public MediaPlayerHelper setProgressInterval(int time) {
         delaySecondTime = time;
-        return instance;
+        return this;
     }
 
     private MediaPlayerService service;
+    private int batchDepth = 0;//批量执行嵌套层数
 
     /**
      * 绑定服务
@@ -166,46 +367,124 @@ public class MediaPlayerHelper {
      * @return 实例
      */
     private MediaPlayerHelper bindService() {
+        if (serviceBinding) {
+            // 绑定在整个会话内保持，切歌只同步一次通知内容
+            syncService();
+            return this;
+        }
+        serviceBinding = true;
         MediaPlayerService.bindService((events, args) -> {
             switch (events) {
                 case binder:
                     service = (MediaPlayerService) args[0];
-                    service.updateNotificationConfig(
-                            mediaInfo.titleMaxLines,
-                            mediaInfo.showPreviousButton,
-                            mediaInfo.showNextButton,
-                            mediaInfo.showStopButton);
-                    service.updateNotification(isPlaying(), mediaInfo.title, mediaInfo.desc);
-                    if (mediaInfo.cover != null) {
-                        updateCover(mediaInfo.cover);
-                    }
+                    syncService();
+                    // 本地文件可能在绑定完成前就已开始播放
+                    if (isPlaying()) startForegroundIfNeeded();
                     break;
                 case playOrPause:
                     playOrPause();
                     break;
+                case play:
+                    play();
+                    break;
+                case pause:
+                    pause();
+                    break;
                 case next:
-                    onStatusCallbackNext(CallBackState.next);
+                    if (!skip(1, "next")) statusListener.onNext();
                     break;
                 case previous:
-                    onStatusCallbackNext(CallBackState.previous);
+                    if (!skip(-1, "previous")) statusListener.onPrevious();
                     break;
                 case stop:
                     release();
                     break;
             }
         });
+        return this;
+    }
 
-        keepAlive();
-        return instance;
+    /**
+     * 真正开始播放时才把服务提升为前台，准备阶段不展示通知卡片
+     */
+    private void startForegroundIfNeeded() {
+        if (isPrimary() && service != null) service.startForegroundIfNeeded();
+    }
+
+    /**
+     * 批量执行开始：期间的通知与会话更新推迟到 endBatch 时统一刷新一次
+     */
+    void beginBatch() {
+        batchDepth++;
+    }
+
+    void endBatch() {
+        if (batchDepth > 0 && --batchDepth == 0) syncService();
+    }
+
+    private boolean canNotify() {
+        return service != null && batchDepth == 0;
+    }
+
+    /**
+     * 将当前媒体信息完整同步到通知与锁屏
+     */
+    private void syncService() {
+        if (!canNotify()) return;
+        service.updateNotificationConfig(
+                mediaInfo.titleMaxLines,
+                mediaInfo.showPreviousButton,
+                mediaInfo.showNextButton,
+                mediaInfo.showStopButton);
+        service.updateNotification(isPlaying(), mediaInfo.title, currentDesc());
+        if (mediaInfo.embeddedCover && mediaInfo.url != null && !mediaInfo.url.startsWith("http")) {
+            updateEmbeddedCover();
+        } else if (mediaInfo.cover != null) {
+            updateCover(mediaInfo.cover);
+        }
+    }
+
+    /**
+     * 后台线程取内嵌封面；没有内嵌封面时回到主线程按 cover 更新
+     */
+    private void updateEmbeddedCover() {
+        final MediaPlayerService target = service;
+        final String forUrl = mediaInfo.url;
+        final boolean isAsset = mediaInfo.isAsset;
+        new Thread(() -> {
+            Bitmap bitmap = EmbeddedArtwork.load(context, forUrl, isAsset);
+            PlayerState current = snapshot;
+            if (current.state != PlayerState.IDLE && !forUrl.equals(current.url)) return;
+            if (bitmap != null) {
+                target.updateCover(bitmap);
+                return;
+            }
+            refress_time_handler.post(() -> {
+                if (!forUrl.equals(mediaInfo.url) || !canNotify()) return;
+                if (mediaInfo.cover != null && !mediaInfo.cover.isEmpty()) {
+                    updateCover(mediaInfo.cover);
+                } else {
+                    service.updateCover(R.drawable.ic_launcher);
+                }
+            });
+        }).start();
+    }
+
+    /**
+     * 通知栏第二行：有歌词时显示当前歌词行，否则显示 desc
+     */
+    private String currentDesc() {
+        if (lyrics != null && lyricIndex >= 0) return lyrics.lineAt(lyricIndex);
+        return mediaInfo.desc;
     }
 
     /**
      * 更新锁屏信息 必须在 bindService 之后调用
      */
     MediaPlayerHelper updateLrc(String desc) {
-        if (service == null) return instance;
+        if (!canNotify()) return this;
         service.updateNotification(isPlaying(), mediaInfo.title, desc);
-        return instance;
+        return this;
     }
 
     /**
@@ -214,12 +493,12 @@ public class MediaPlayerHelper {
      * 申请权限前那次 notify() 会被系统静默丢弃，卡片不会自动出现。
      */
     MediaPlayerHelper refreshNotification() {
-        if (service != null) {
+        if (canNotify()) {
             service.updateNotification(isPlaying(),
                     mediaInfo != null ? mediaInfo.title : "",
                     mediaInfo != null ? mediaInfo.desc : "");
         }
-        return instance;
+        return this;
     }
 
     MediaPlayerHelper updateInfo(String title, String desc, String cover,
@@ -235,25 +514,31 @@ public class MediaPlayerHelper {
             mediaInfo.cover = cover;
             updateCover(mediaInfo.cover);
         }
-        if (service != null) {
+        if (canNotify()) {
             service.updateNotificationConfig(titleMaxLines, showPreviousButton, showNextButton, showStopButton);
             service.updateNotification(isPlaying(), mediaInfo.title, mediaInfo.desc);
         }
-        return instance;
+        transition(state);
+        return this;
     }
 
     MediaPlayerHelper updateCover(String url) {
-        if (service == null) return instance;
+        if (!canNotify()) return this;
         if (url.contains("http")) {
+            // 下载线程不读写播放器字段：服务引用先取出，完成后按快照确认曲目未变再更新
+            final MediaPlayerService target = service;
+            final String forUrl = mediaInfo.url;
             new Thread(() -> {
                 Bitmap bitmap = getBitmapFromUrl(url);
+                PlayerState current = snapshot;
+                if (current.state != PlayerState.IDLE && forUrl != null && !forUrl.equals(current.url)) return;
                 if (bitmap != null) {
-                    service.updateCover(bitmap);
+                    target.updateCover(bitmap);
                 } else {
-                    service.updateCover(R.drawable.ic_launcher);
+                    target.updateCover(R.drawable.ic_launcher);
                 }
             }).start();
-            return instance;
+            return this;
         }
         try {
             InputStream inputStream;
@@ -275,13 +560,20 @@ public class MediaPlayerHelper {
         } catch (IOException e) {
             service.updateCover(R.drawable.ic_launcher);
         }
-        return instance;
+        return this;
     }
 
     /**
      * 播放音视频
      */
     void start(MediaInfo info) throws Exception {
+        start(info, 0, 0f);
+    }
+
+    /**
+     * 播放音视频，准备完成后跳到 seekMs，开始播放后应用 speed（大于 0 时）
+     */
+    private void start(MediaInfo info, int seekMs, float speed) throws Exception {
         if (info.url.equals(curUrl)) {
             play();
             return;
@@ -290,15 +582,18 @@ public class MediaPlayerHelper {
         if (mediaInfo.url == null) throw new Exception("you must invoke setInfo method before");
 
         stop();
+        // stop() 清掉了上一首遗留的值，恢复会话的进度与倍速在它之后设置
+        pendingSeekMs = seekMs;
+        pendingSpeed = speed;
         uiHolder.player = new MediaPlayer();
         keepAlive();
         initPlayerListener();
 
-        if (!mediaInfo.isVideo) bindService();
+        if (!mediaInfo.isVideo && isPrimary()) bindService();
 
         if (mediaInfo.isAsset) {
 //            if (!checkAvalable(mediaInfo.url)) {
-//                onStatusCallbackNext(CallBackState.FORMAT_NOT_SUPPORT, mediaInfo.url);
+//                statusListener.onVideoEvent(CallBackState.FORMAT_NOT_SUPPORT, mediaInfo.url);
 //                return;
 //            }
             if (mediaInfo.isVideo) {
@@ -311,19 +606,23 @@ public class MediaPlayerHelper {
                 beginPlayAsset(mediaInfo.url);
             }
         } else {
+            selectVariant(mediaInfo);
             if (mediaInfo.isVideo) {
                 if (isHolderCreate) {
-                    beginPlayUrl(mediaInfo.url);
+                    beginPlayMedia();
                 } else {
-                    setOnHolderCreateListener(() -> beginPlayUrl(mediaInfo.url));
+                    setOnHolderCreateListener(this::beginPlayMedia);
                 }
             } else {
-                beginPlayUrl(mediaInfo.url);
+                beginPlayMedia();
             }
         }
 
         curUrl = mediaInfo.url;
-        isPrepare = false;
+        stallCount = 0;
+        lastBufferPercent = -1;
+        fullyBuffered = OfflineDownloads.completed(context, curUrl) != null;//离线副本不走网络，无需 wifi 锁
+        transition(PlayerState.PREPARING, 0);
     }
 
     /**
@@ -333,7 +632,7 @@ public class MediaPlayerHelper {
      */
     public void playAsset(String assetName, boolean isVideo) {
 //        if (!checkAvalable(assetName)) {
-//            onStatusCallbackNext(CallBackState.FORMAT_NOT_SUPPORT, assetName);
+//            statusListener.onVideoEvent(CallBackState.FORMAT_NOT_SUPPORT, assetName);
 //            return;
 //        }
         if (isVideo) {
@@ -400,6 +699,11 @@ public class MediaPlayerHelper {
      * @return 是否设置成功
      */
     boolean setSpeed(float speed) {
+        if (state == PlayerState.PREPARING) {
+            // 准备中的 MediaPlayer 不能设置参数，记下来开始播放后再应用
+            pendingSpeed = speed;
+            return true;
+        }
         if (!canPlay()) return false;
         //倍速设置，必须在23以上
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
@@ -407,81 +711,124 @@ public class MediaPlayerHelper {
                 uiHolder.player.setPlaybackParams(uiHolder.player.getPlaybackParams().setSpeed(speed));
                 uiHolder.player.pause();
                 uiHolder.player.start();
+                this.speed = speed;
+                scheduleTimers();
+                transition(isPlaying() ? PlayerState.PLAYING : PlayerState.PAUSED);
+                saveSession(true);
                 return true;
             } catch (Exception e) {
                 Log.e(TAG, "setPlaySpeed: ", e);
                 return false;
             }
         } else {
-            Log.v(TAG, "对不起请升级手机系统至Android6.0及以上");
+            Diagnostics.log(Log.VERBOSE, TAG, "对不起请升级手机系统至Android6.0及以上");
             return false;
         }
     }
 
     void play() {
+        if (state == PlayerState.PREPARING) {
+            // 准备中先记下意图，准备完成后自动开始
+            mediaInfo.isAuto = true;
+            return;
+        }
         if (!canPlay()) return;
         if (isPlaying()) return;
         requestAudioFocus();
         uiHolder.player.start();
-        onStatusCallbackNext(CallBackState.playOrPause, isPlaying());
-
-        if (service != null)
+        applyPendingSpeed();
+        startForegroundIfNeeded();
+        scheduleTimers();
+        transition(PlayerState.PLAYING);
+        saveSession(true);
+        statusListener.onPlayStatus(isPlaying());
+
+        if (canNotify())
             service.updateNotification(isPlaying(), mediaInfo.title, null);
     }
 
     void pause() {
+        if (state == PlayerState.PREPARING) {
+            mediaInfo.isAuto = false;
+            return;
+        }
         if (!canPlay()) return;
         if (!isPlaying()) return;
         abandonAudioFocus();
+        finishCrossfade();
         uiHolder.player.pause();
-        onStatusCallbackNext(CallBackState.playOrPause, isPlaying());
+        saveResume(position(), true);
+        scheduleTimers();
+        transition(PlayerState.PAUSED);
+        saveSession(true);
+        statusListener.onPlayStatus(isPlaying());
 
-        if (service != null)
+        if (canNotify())
             service.updateNotification(isPlaying(), mediaInfo.title, null);
     }
 
     void playOrPause() {
+        if (state == PlayerState.PREPARING) {
+            mediaInfo.isAuto = !mediaInfo.isAuto;
+            return;
+        }
         if (!canPlay()) return;
         if (isPlaying()) {
             abandonAudioFocus();
+            finishCrossfade();
             uiHolder.player.pause();
+            saveResume(position(), true);
         } else {
             requestAudioFocus();
             uiHolder.player.start();
+            applyPendingSpeed();
+            startForegroundIfNeeded();
         }
-        onStatusCallbackNext(CallBackState.playOrPause, isPlaying());
+        scheduleTimers();
+        transition(isPlaying() ? PlayerState.PLAYING : PlayerState.PAUSED);
+        saveSession(true);
+        statusListener.onPlayStatus(isPlaying());
 
-        if (service != null)
+        if (canNotify())
             service.updateNotification(isPlaying(), mediaInfo.title, null);
     }
 
-    private boolean canPlay() {
-        if (!isPrepare) {
-            Log.e(TAG, "媒体资源加载失败");
-            onStatusCallbackNext(CallBackState.error, "媒体资源加载失败");
+    /**
+     * 应用准备期间记下的倍速
+     */
+    private void applyPendingSpeed() {
+        float target = pendingSpeed;
+        pendingSpeed = 0f;
+        if (target <= 0) return;
+        if (target != 1f) {
+            setSpeed(target);
+        } else {
+            speed = 1f;
         }
-        return isPrepare;
-    }
-
-    boolean isPlaying() {
-        if (uiHolder.player == null) return false;
-        return uiHolder.player.isPlaying();
     }
 
-    String getTitle() {
-        return mediaInfo.title;
+    private boolean canPlay() {
+        if (!isPrepared()) {
+            Log.e(TAG, "媒体资源加载失败");
+            statusListener.onError("媒体资源加载失败");
+        }
+        return isPrepared();
     }
 
-    String getDesc() {
-        return mediaInfo.desc;
+    private boolean isPrepared() {
+        return PlayerState.isPrepared(state);
     }
 
-    String getCover() {
-        return mediaInfo.cover;
+    /**
+     * 最近一次状态变化时的只读快照，任意线程可调用
+     */
+    PlayerState snapshot() {
+        return snapshot;
     }
 
-    String getUrl() {
-        return mediaInfo.url;
+    boolean isPlaying() {
+        if (uiHolder.player == null) return false;
+        return uiHolder.player.isPlaying();
     }
 
     int position() {
@@ -496,13 +843,25 @@ public class MediaPlayerHelper {
 
     boolean seekTo(int position) {
         if (uiHolder.player == null) return false;
+        if (state == PlayerState.PREPARING) {
+            // 准备中的 MediaPlayer 不能 seek，记下位置，准备完成后在 start() 之前跳过去
+            pendingSeekMs = position;
+            transition(state, position);
+            return true;
+        }
         uiHolder.player.seekTo(position);
+        // 拖动完成前不再按旧进度触发提示点，被跳过的提示点不触发
+        refress_time_handler.removeCallbacks(cue_Thread);
+        cueAnchor = position;
+        // 先以目标位置为锚点，避免拖动完成前读方仍按旧进度外推
+        transition(state, position);
         return true;
     }
 
     // 低于 Android 8.0 只能使用已废弃的音频焦点 API，保留兜底
     @SuppressWarnings("deprecation")
     private void requestAudioFocus() {
+        audioFocusHolders.add(this);
         if (audioManager == null || audioFocusGranted) return;
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
             AudioFocusRequest.Builder builder = new AudioFocusRequest.Builder(AudioManager.AUDIOFOCUS_GAIN)
@@ -523,7 +882,8 @@ public class MediaPlayerHelper {
 
     @SuppressWarnings("deprecation")
     private void abandonAudioFocus() {
-        if (audioManager == null || !audioFocusGranted) return;
+        audioFocusHolders.remove(this);
+        if (audioManager == null || !audioFocusGranted || !audioFocusHolders.isEmpty()) return;
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
             audioManager.abandonAudioFocusRequest(audioFocusRequest);
         } else {
@@ -537,15 +897,27 @@ public class MediaPlayerHelper {
      */
     public void stop() {
         abandonAudioFocus();
+        finishCrossfade();
+        releaseNext();
         if (uiHolder.player != null) {
+            if (isPrepared()) saveResume(position(), true);
             uiHolder.player.release();
             uiHolder.player = null;
         }
-        onStatusCallbackNext(CallBackState.stop);
+        statusListener.onStop();
         refress_time_handler.removeCallbacks(refress_time_Thread);
+        refress_time_handler.removeCallbacks(recoverTask);
+        refress_time_handler.removeCallbacks(stallWatchdog);
+        recovery.reset();
+        lastPositionMs = 0;
+        // 准备中收到的 seek 与倍速只属于这一首
+        pendingSeekMs = 0;
+        pendingSpeed = 0f;
+        clearLyrics();
+        clearCues();
 
         curUrl = "";
-        isPrepare = false;
+        transition(PlayerState.IDLE, 0);
     }
 
     /**
@@ -553,10 +925,37 @@ public class MediaPlayerHelper {
      */
     public void release() {
         stop();
-        MediaPlayerService.unBind(context);
+        if (isPrimary()) {
+            MediaPlayerService.unBind(context);
+            serviceBinding = false;
+            // 主动释放表示会话结束，之后的媒体按键不再恢复
+            SessionStore.clear(context);
+        }
+        service = null;
+        NetworkLock.get(context).release(playerId);
+    }
 
-        if (wifiLock != null && wifiLock.isHeld())
-            wifiLock.release();
+    /**
+     * 销毁播放器：释放资源并从注册表移除。
+     * 主播放器被销毁时通知交还给默认播放器
+     */
+    void dispose() {
+        boolean wasPrimary = isPrimary();
+        release();
+        MediaPlayerHelper fallback = null;
+        synchronized (MediaPlayerHelper.class) {
+            players.remove(playerId);
+            if (wasPrimary) {
+                primaryId = DEFAULT_PLAYER_ID;
+                fallback = players.get(primaryId);
+            }
+        }
+        statusListener = NO_LISTENER;
+        if (clock != null) {
+            clock.close();
+            clock = null;
+        }
+        if (fallback != null && fallback.uiHolder.player != null) fallback.bindService();
     }
 
 //    /**
@@ -583,7 +982,7 @@ public class MediaPlayerHelper {
      */
     public MediaPlayerHelper setSurfaceView(SurfaceView surfaceView) {
         if (surfaceView == null) {
-            onStatusCallbackNext(CallBackState.SURFACE_NULL, uiHolder.player);
+            statusListener.onVideoEvent(CallBackState.SURFACE_NULL, uiHolder.player);
         } else {
             uiHolder.surfaceView = surfaceView;
             uiHolder.surfaceHolder = uiHolder.surfaceView.getHolder();
@@ -600,42 +999,40 @@ public class MediaPlayerHelper {
                             });
                         }
                     }
-                    onStatusCallbackNext(CallBackState.SURFACE_CREATE, holder);
+                    statusListener.onVideoEvent(CallBackState.SURFACE_CREATE, holder);
                     onHolderCreateNext();
                 }
 
                 @Override
                 public void surfaceChanged(SurfaceHolder holder, int format, int width, int height) {
-                    onStatusCallbackNext(CallBackState.SURFACE_CHANGE, format, width, height);
+                    statusListener.onVideoEvent(CallBackState.SURFACE_CHANGE, format, width, height);
                 }
 
                 @Override
                 public void surfaceDestroyed(SurfaceHolder holder) {
                     isHolderCreate = false;
-                    onStatusCallbackNext(CallBackState.SURFACE_DESTROY, holder);
+                    statusListener.onVideoEvent(CallBackState.SURFACE_DESTROY, holder);
                 }
             });
         }
-        return instance;
+        return this;
     }
 
     /**
      * 构造函数
      */
-    private MediaPlayerHelper(Context context) {
-        if (instance == null) {
-            instance = this;
-        }
+    private MediaPlayerHelper(Context context, String playerId) {
         this.context = context;
+        this.playerId = playerId;
         this.uiHolder = new Holder();
-        this.audioManager = (AudioManager) context.getSystemService(Context.AUDIO_SERVICE);
-        this.audioFocusChangeListener = focusChange -> {
-            if (focusChange == AudioManager.AUDIOFOCUS_LOSS
-                    || focusChange == AudioManager.AUDIOFOCUS_LOSS_TRANSIENT) {
-                pause();
-            }
-        };
-        MediaPlayerService.registerReceiver(context);
+        if (audioManager == null) {
+            audioManager = (AudioManager) context.getSystemService(Context.AUDIO_SERVICE);
+        }
+        // 通知事件接收器只能注册一次，否则会重复分发
+        if (!receiverRegistered) {
+            MediaPlayerService.registerReceiver(context);
+            receiverRegistered = true;
+        }
 //        uiHolder.player = new MediaPlayer();
 //        keepAlive();
 //        initPlayerListener();
@@ -646,16 +1043,36 @@ public class MediaPlayerHelper {
      */
     private void initPlayerListener() {
         uiHolder.player.setOnCompletionListener(mp -> {
-            onStatusCallbackNext(CallBackState.progress, 100);
-            onStatusCallbackNext(CallBackState.ended, mp);
+            statusListener.onProgress(duration(), duration());
+            transition(PlayerState.ENDED);
+            saveResume(0, true);
+            statusListener.onEnded();
+            if (queue.isAutoAdvance()) skip(1, "ended");
         });
         uiHolder.player.setOnErrorListener((mp, what, extra) -> {
             String errorString = "what:" + what + " extra:" + extra;
-            onStatusCallbackNext(CallBackState.error, errorString);
+            // 返回 true 拦截 onCompletion，恢复期间不能当作播放结束
+            if (scheduleRecovery(what, extra, errorString)) return true;
+            transition(PlayerState.ERROR);
+            statusListener.onError(errorString);
             return false;
         });
         uiHolder.player.setOnInfoListener((mp, what, extra) -> {
-            onStatusCallbackNext(CallBackState.INFO, mp, what, extra);
+            // 准备完成前的缓冲仍算准备中
+            if (what == MediaPlayer.MEDIA_INFO_BUFFERING_START && isPrepared()) {
+                // 降档后已在重新准备，状态是 PREPARING，不能再被改成 BUFFERING 或交给看门狗
+                if (state == PlayerState.PLAYING && onStall()) {
+                    statusListener.onInfo(what, extra);
+                    return false;
+                }
+                transition(PlayerState.BUFFERING);
+                refress_time_handler.removeCallbacks(stallWatchdog);
+                refress_time_handler.postDelayed(stallWatchdog, STALL_TIMEOUT_MS);
+            } else if (what == MediaPlayer.MEDIA_INFO_BUFFERING_END && state == PlayerState.BUFFERING) {
+                refress_time_handler.removeCallbacks(stallWatchdog);
+                transition(isPlaying() ? PlayerState.PLAYING : PlayerState.PAUSED);
+            }
+            statusListener.onInfo(what, extra);
             return false;
         });
         uiHolder.player.setOnPreparedListener(mp -> {
@@ -668,25 +1085,45 @@ public class MediaPlayerHelper {
                         uiHolder.player.setDisplay(uiHolder.surfaceHolder);
                     });
                 }
-                isPrepare = true;
+                transition(PlayerState.PREPARED);
+                recovery.onRecovered();
+                // 在 start() 之前跳到续播位置，避免先从头播出一小段
+                int resumeAt = pendingSeekMs > 0 ? pendingSeekMs : resumePosition();
+                pendingSeekMs = 0;
+                if (resumeAt > 0) seekTo(resumeAt);
                 if (mediaInfo.isAuto) {
                     requestAudioFocus();
                     uiHolder.player.start();
+                    startForegroundIfNeeded();
+                    applyPendingSpeed();
+                    scheduleTimers();
                 }
+                preloadFromQueue();
+                prepareUpcoming();
                 refress_time_handler.postDelayed(refress_time_Thread, delaySecondTime);
             } catch (Exception e) {
-                onStatusCallbackNext(CallBackState.error, e.toString());
+                statusListener.onError(e.toString());
             }
-            String holderMsg = "holder -";
-            if (uiHolder.surfaceHolder != null) {
-                holderMsg = holderMsg + " height：" + uiHolder.surfaceHolder.getSurfaceFrame().height();
-                holderMsg = holderMsg + " width：" + uiHolder.surfaceHolder.getSurfaceFrame().width();
+            transition(isPlaying() ? PlayerState.PLAYING : PlayerState.PREPARED);
+            saveSession(true);
+            statusListener.onReady(duration());
+        });
+        uiHolder.player.setOnSeekCompleteListener(mp -> {
+            lastPositionMs = position();
+            scheduleTimers();
+            transition(state);
+            saveSession(false);
+            statusListener.onSeekComplete(position());
+        });
+        uiHolder.player.setOnVideoSizeChangedListener((mp, width, height) -> statusListener.onVideoEvent(CallBackState.VIDEO_SIZE_CHANGE, width, height));
+        uiHolder.player.setOnBufferingUpdateListener((mp, percent) -> {
+            sampleBuffering(percent);
+            if (percent >= 100 && !fullyBuffered) {
+                fullyBuffered = true;
+                updateNetworkLock(state);
             }
-            onStatusCallbackNext(CallBackState.ready, holderMsg);
+            statusListener.onBuffering(percent);
         });
-        uiHolder.player.setOnSeekCompleteListener(mp -> onStatusCallbackNext(CallBackState.seekComplete, mp));
-        uiHolder.player.setOnVideoSizeChangedListener((mp, width, height) -> onStatusCallbackNext(CallBackState.VIDEO_SIZE_CHANGE, width, height));
-        uiHolder.player.setOnBufferingUpdateListener((mp, percent) -> onStatusCallbackNext(CallBackState.buffering, mp, percent));
     }
 
     /**
@@ -705,10 +1142,190 @@ public class MediaPlayerHelper {
             //Uri url = Uri.fromFile(new File(path));
             uiHolder.player.setDisplay(null);
             uiHolder.player.reset();
-            uiHolder.player.setDataSource(path);
+            setSource(uiHolder.player, path);
             uiHolder.player.prepareAsync();
         } catch (Exception e) {
-            onStatusCallbackNext(CallBackState.error, e.toString());
+            statusListener.onError(e.toString());
+        }
+    }
+
+    /**
+     * 数据源优先级：离线下载的完整文件 > 预取的头部缓存 > 网络
+     */
+    private void setSource(MediaPlayer player, String url) throws IOException {
+        File offline = OfflineDownloads.completed(context, url);
+        if (offline != null) {
+            player.setDataSource(offline.getPath());
+            return;
+        }
+        MediaDataSource cached = cachedSource(url);
+        if (cached != null) {
+            player.setDataSource(cached);
+        } else {
+            player.setDataSource(url);
+        }
+    }
+
+    /**
+     * 有镜像时先用历史最快的主机，统计不足就竞速，胜出的地址再交给 beginPlayUrl；
+     * 已离线下载或已预取头部的直接走本地
+     */
+    private void beginPlayMedia() {
+        final MediaInfo info = mediaInfo;
+        info.mirror = null;
+        if (info.mirrors.isEmpty() || info.currentVariant() != null
+                || OfflineDownloads.completed(context, info.url) != null
+                || MediaCache.head(context, info.url) != null) {
+            beginPlayUrl(info.playUrl());
+            return;
+        }
+        List<String> candidates = mirrorCandidates(info);
+        String preferred = MirrorRace.preferred(context, candidates);
+        if (preferred != null) {
+            info.mirror = preferred;
+            beginPlayUrl(preferred);
+            return;
+        }
+        MirrorRace.race(context, candidates, winner -> refress_time_handler.post(() -> {
+            // 竞速期间已切歌或停止
+            if (mediaInfo != info || uiHolder.player == null) return;
+            info.mirror = winner;
+            beginPlayUrl(winner);
+        }));
+    }
+
+    private static List<String> mirrorCandidates(MediaInfo info) {
+        List<String> candidates = new ArrayList<>(info.mirrors.size() + 1);
+        candidates.add(info.url);
+        candidates.addAll(info.mirrors);
+        return candidates;
+    }
+
+    /**
+     * 按当前带宽估计选择码率；已离线下载的直接播放本地文件，不选
+     */
+    private void selectVariant(MediaInfo info) {
+        info.variant = -1;
+        if (info.variants.isEmpty() || OfflineDownloads.completed(context, info.url) != null) return;
+        info.variant = ThroughputEstimator.select(info.variants);
+        Diagnostics.log(Log.DEBUG, TAG, "variant %d bit/s", info.variants.get(info.variant).bitrate);
+    }
+
+    /**
+     * 播放中卡顿：压低带宽估计，STALL_WINDOW_MS 内累计 STALLS_TO_DOWNGRADE 次就降一档码率，
+     * 在当前播放器上重新准备并回到原进度
+     *
+     * @return 是否已降档并重新准备
+     */
+    private boolean onStall() {
+        Variant current = mediaInfo.currentVariant();
+        if (current == null) return false;
+        ThroughputEstimator.onStall(current.bitrate);
+        long now = SystemClock.elapsedRealtime();
+        if (now - firstStallAt > STALL_WINDOW_MS) {
+            firstStallAt = now;
+            stallCount = 0;
+        }
+        if (++stallCount < STALLS_TO_DOWNGRADE) return false;
+        int lower = ThroughputEstimator.lower(mediaInfo.variants, mediaInfo.variant);
+        if (lower < 0) return false;
+        stallCount = 0;
+        Diagnostics.log(Log.INFO, TAG, "downgrade %d -> %d bit/s", current.bitrate, mediaInfo.variants.get(lower).bitrate);
+        mediaInfo.variant = lower;
+        mediaInfo.isAuto = true;
+        pendingSeekMs = position();
+        lastBufferPercent = -1;
+        refress_time_handler.removeCallbacks(refress_time_Thread);
+        beginPlayUrl(mediaInfo.playUrl());
+        transition(PlayerState.PREPARING, pendingSeekMs);
+        return true;
+    }
+
+    /**
+     * 网络音源的可恢复错误：记下进度与播放意图，退避后在新的 MediaPlayer 上重新准备并回到原进度。
+     * 本地音源、不可恢复的错误或次数用尽时返回 false，由调用方照常上报
+     */
+    private boolean scheduleRecovery(int what, int extra, String reason) {
+        if (!isNetworkSource() || OfflineDownloads.completed(context, curUrl) != null) return false;
+        if (!ErrorRecovery.isTransient(what, extra, lastPositionMs > 0 || isPrepared())) return false;
+        boolean first = !recovery.isRecovering();
+        long delay = recovery.nextDelay();
+        if (delay < 0) {
+            Diagnostics.error("recovery gave up: " + reason);
+            return false;
+        }
+        if (first) {
+            recoverAtMs = lastPositionMs;
+            recoverPlaying = state == PlayerState.PLAYING || state == PlayerState.BUFFERING
+                    || (state == PlayerState.PREPARING && mediaInfo.isAuto);
+        }
+        Diagnostics.error("recover " + reason);
+        Diagnostics.log(Log.WARN, TAG, "recover attempt %d in %dms", recovery.attempts(), delay);
+        refress_time_handler.removeCallbacks(refress_time_Thread);
+        refress_time_handler.removeCallbacks(stallWatchdog);
+        refress_time_handler.removeCallbacks(recoverTask);
+        refress_time_handler.postDelayed(recoverTask, delay);
+        transition(PlayerState.PREPARING, recoverAtMs);
+        statusListener.onRecovering(recovery.attempts(), delay);
+        return true;
+    }
+
+    private final Runnable recoverTask = this::recover;
+
+    /**
+     * 出错的 MediaPlayer 状态不可再用，换一个新的重新准备；有头部缓存时同样先读本地
+     */
+    private void recover() {
+        if (uiHolder.player == null) return;
+        releaseNext();
+        MediaPlayer failed = uiHolder.player;
+        uiHolder.player = new MediaPlayer();
+        failed.release();
+        keepAlive();
+        initPlayerListener();
+        pendingSeekMs = recoverAtMs;
+        mediaInfo.isAuto = recoverPlaying;
+        lastBufferPercent = -1;
+        if (mediaInfo.isVideo && !isHolderCreate) {
+            setOnHolderCreateListener(this::beginPlayMedia);
+        } else {
+            beginPlayMedia();
+        }
+    }
+
+    /**
+     * 缓冲太久不结束：多半是连接已经断了但播放器没有报错，按网络超时走恢复
+     */
+    private final Runnable stallWatchdog = () -> {
+        if (state != PlayerState.BUFFERING) return;
+        scheduleRecovery(MediaPlayer.MEDIA_ERROR_UNKNOWN, MediaPlayer.MEDIA_ERROR_TIMED_OUT, "stall");
+    };
+
+    /**
+     * 缓冲进度的增量按码率折算成字节作为吞吐样本；间隔过长说明中间停过下载，不计
+     */
+    private void sampleBuffering(int percent) {
+        long now = SystemClock.elapsedRealtime();
+        Variant current = mediaInfo.currentVariant();
+        if (current != null && lastBufferPercent >= 0 && percent > lastBufferPercent && now - lastBufferAt <= 2000) {
+            long bytes = (long) (percent - lastBufferPercent) * duration() / 100 * current.bitrate / 8000;
+            ThroughputEstimator.sample(bytes, now - lastBufferAt);
+        }
+        lastBufferPercent = percent;
+        lastBufferAt = now;
+    }
+
+    /**
+     * 已预取头部的网络音源改用先读本地缓存的数据源，起播不等网络
+     */
+    private MediaDataSource cachedSource(String url) {
+        if (url == null || !url.startsWith("http")) return null;
+        MediaCache.Head head = MediaCache.head(context, url);
+        if (head == null) return null;
+        try {
+            return new CachingDataSource(url, head);
+        } catch (IOException e) {
+            return null;
         }
     }
 
@@ -732,7 +1349,7 @@ public class MediaPlayerHelper {
             uiHolder.player.setDataSource(uiHolder.assetDescriptor.getFileDescriptor(), uiHolder.assetDescriptor.getStartOffset(), uiHolder.assetDescriptor.getLength());
             uiHolder.player.prepareAsync();
         } catch (Exception e) {
-            onStatusCallbackNext(CallBackState.error, e.toString());
+            statusListener.onError(e.toString());
         }
     }
 
@@ -755,7 +1372,7 @@ public class MediaPlayerHelper {
             uiHolder.player.setDataSource(mediaDataSource);
             uiHolder.player.prepareAsync();
         } catch (Exception e) {
-            onStatusCallbackNext(CallBackState.error, e.toString());
+            statusListener.onError(e.toString());
         }
     }
 
@@ -773,31 +1390,479 @@ public class MediaPlayerHelper {
             }
         }
         if (!surport) {
-            onStatusCallbackNext(CallBackState.FORMAT_NOT_SUPPORT, uiHolder.player);
+            statusListener.onVideoEvent(CallBackState.FORMAT_NOT_SUPPORT, uiHolder.player);
             return false;
         }
         return true;
     }
 
-    // API 29 起旧的 WifiLock 模式全部废弃，且仅 WIFI_MODE_FULL_LOW_LATENCY 可作替代；
-    // Android 10 以下没有非废弃模式，保留兜底
-    @SuppressWarnings("deprecation")
     private void keepAlive() {
         // 设置设备进入锁状态模式-可在后台播放或者缓冲音乐-CPU一直工作
+        // MediaPlayer 只在播放时持有该锁，暂停/停止后自动释放
         uiHolder.player.setWakeMode(context, PowerManager.PARTIAL_WAKE_LOCK);
         // 当播放的时候一直让屏幕变亮
 //        player.setScreenOnWhilePlaying(true);
+        // wifi 锁不在这里获取，由 updateNetworkLock 按播放状态管理
+    }
+
+    /**
+     * 是否为需要联网的音源，本地文件与 assets 不需要 wifi 锁
+     */
+    private boolean isNetworkSource() {
+        if (mediaInfo.isAsset || curUrl == null) return false;
+        String url = curUrl.toLowerCase(Locale.US);
+        return url.startsWith("http://") || url.startsWith("https://")
+                || url.startsWith("rtsp://") || url.startsWith("rtmp://");
+    }
 
-        // 如果你使用wifi播放流媒体，你还需要持有wifi锁
-        // WIFI_MODE_FULL 已在 API 29 废弃，改用推荐的替代模式
-        WifiManager wifiManager = (WifiManager) Objects.requireNonNull(
-                context.getApplicationContext().getSystemService(Context.WIFI_SERVICE));
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
-            wifiLock = wifiManager.createWifiLock(WifiManager.WIFI_MODE_FULL_LOW_LATENCY, "wifilock");
+    /**
+     * 网络音源在准备、缓冲或播放且尚未全部缓存时持有 wifi 锁，其余状态（暂停/结束/出错/停止）释放
+     */
+    private void updateNetworkLock(int state) {
+        boolean active = state == PlayerState.PREPARING
+                || state == PlayerState.BUFFERING
+                || state == PlayerState.PLAYING;
+        if (active && !fullyBuffered && isNetworkSource()) {
+            NetworkLock.get(context).acquire(playerId);
         } else {
-            wifiLock = wifiManager.createWifiLock(WifiManager.WIFI_MODE_FULL_HIGH_PERF, "wifilock");
+            NetworkLock.get(context).release(playerId);
         }
-        wifiLock.acquire();
+    }
+
+    /**
+     * 播放进度或速率发生跳变（播放/暂停/拖动/倍速/准备完成）时重新计算所有定时任务
+     */
+    private void scheduleTimers() {
+        scheduleCrossfade();
+        scheduleLyric();
+        scheduleCue();
+    }
+
+    /* ***************************** 歌词 ***************************** */
+
+    /**
+     * 设置当前曲目的整篇 LRC 歌词，原生按进度逐行更新通知栏与锁屏，
+     * 无需 Dart 监听进度逐行调用 updateLrc。传空则清除并恢复显示 desc
+     *
+     * @return 解析出的歌词行数
+     */
+    int setLyrics(String lrc) {
+        LrcDocument document = LrcDocument.parse(lrc);
+        clearLyrics();
+        lyrics = document;
+        if (document == null) {
+            if (canNotify()) service.updateNotification(isPlaying(), mediaInfo.title, mediaInfo.desc);
+            return 0;
+        }
+        scheduleLyric();
+        return document.size();
+    }
+
+    private void clearLyrics() {
+        refress_time_handler.removeCallbacks(lyric_Thread);
+        lyrics = null;
+        lyricIndex = -1;
+    }
+
+    /**
+     * 二分定位当前行，有变化才刷新通知；播放中只为下一行设置一个定时
+     */
+    private void scheduleLyric() {
+        refress_time_handler.removeCallbacks(lyric_Thread);
+        if (lyrics == null || !isPrepared() || uiHolder.player == null) return;
+        long position = position();
+        int index = lyrics.indexAt(position);
+        if (index != lyricIndex) {
+            lyricIndex = index;
+            if (canNotify()) service.updateNotification(isPlaying(), mediaInfo.title, currentDesc());
+        }
+        if (!isPlaying() || index + 1 >= lyrics.size()) return;
+        long remain = lyrics.timeAt(index + 1) - position;
+        refress_time_handler.postDelayed(lyric_Thread, Math.max(0, (long) (remain / speed)));
+    }
+
+    private final Runnable lyric_Thread = this::scheduleLyric;
+
+    /* ***************************** 续播进度 ***************************** */
+
+    /**
+     * 开启后按 url 记录播放进度，下次播放同一 url 时在 start() 前直接跳到该位置
+     */
+    void setResumeEnabled(boolean enabled) {
+        resumeEnabled = enabled;
+    }
+
+    int resumePosition(String url) {
+        return ResumeStore.get(context).get(url);
+    }
+
+    private int resumePosition() {
+        if (!resumeEnabled) return 0;
+        int position = resumePosition(curUrl);
+        int duration = duration();
+        if (duration > 0 && position >= duration - RESUME_TAIL_MS) return 0;
+        return position;
+    }
+
+    /**
+     * 记录当前曲目的进度：进度回调只写入映射内存，暂停/停止时才 flush
+     */
+    private void saveResume(int positionMs, boolean flush) {
+        if (!resumeEnabled || curUrl == null || curUrl.isEmpty()) return;
+        ResumeStore store = ResumeStore.get(context);
+        store.put(curUrl, positionMs);
+        if (flush) store.flush();
+    }
+
+    /* ***************************** 会话快照 ***************************** */
+
+    /**
+     * 写会话快照：状态变化（准备完成/播放/暂停/倍速/切歌）立即写，
+     * 进度类变化按 SESSION_SAVE_INTERVAL_MS 节流。只记录主播放器的音频会话
+     */
+    private void saveSession(boolean force) {
+        if (!isPrimary() || !isPrepared() || mediaInfo.isVideo || curUrl == null || curUrl.isEmpty()) return;
+        long now = SystemClock.uptimeMillis();
+        if (!force && now - sessionSavedAt < SESSION_SAVE_INTERVAL_MS) return;
+        sessionSavedAt = now;
+        SessionStore.Session session = new SessionStore.Session();
+        session.url = curUrl;
+        session.title = mediaInfo.title;
+        session.desc = mediaInfo.desc;
+        session.cover = mediaInfo.cover;
+        session.isAsset = mediaInfo.isAsset;
+        session.position = position();
+        session.speed = speed;
+        session.queueIndex = queueIndex();
+        session.savedAt = System.currentTimeMillis();
+        SessionStore.save(context, session);
+    }
+
+    /**
+     * 当前队列下标：原生队列为空时返回恢复会话时的下标（没有则为 -1）
+     */
+    int queueIndex() {
+        return queue.isEmpty() ? restoredQueueIndex : queue.index();
+    }
+
+    /* ***************************** 提示点与 A-B 循环 ***************************** */
+
+    /**
+     * 添加一次性提示点，播放到 positionMs 时回调一次 cue 事件
+     */
+    void addCue(String id, long positionMs) {
+        cues.addCue(id, positionMs);
+        scheduleCue();
+    }
+
+    boolean removeCue(String id) {
+        boolean removed = cues.removeCue(id);
+        scheduleCue();
+        return removed;
+    }
+
+    /**
+     * 设置 A-B 循环：播放到 B 时跳回 A，end 不大于 start 时取消
+     */
+    void setLoop(long startMs, long endMs) {
+        cues.setLoop(startMs, endMs);
+        scheduleCue();
+    }
+
+    private void clearCues() {
+        refress_time_handler.removeCallbacks(cue_Thread);
+        cues.clear();
+    }
+
+    /**
+     * 只为最近的一个到期点（提示点或循环终点）设置定时，时长按倍速换算
+     */
+    private void scheduleCue() {
+        refress_time_handler.removeCallbacks(cue_Thread);
+        if (cues.isEmpty() || !isPrepared() || uiHolder.player == null) return;
+        long position = position();
+        cueAnchor = position;
+        if (!isPlaying()) return;
+        long delay = cues.delayMs(position, speed);
+        if (delay >= 0) refress_time_handler.postDelayed(cue_Thread, delay);
+    }
+
+    private final Runnable cue_Thread = this::fireCues;
+
+    private void fireCues() {
+        if (!isPrepared() || uiHolder.player == null) return;
+        long position = position();
+        CueScheduler.Wake wake = cues.onWake(cueAnchor, position, speed);
+        if (wake == null) return;
+        if (wake.retryMs > 0) {
+            // 提前唤醒，只补足剩余时间
+            refress_time_handler.postDelayed(cue_Thread, wake.retryMs);
+            return;
+        }
+        for (CueScheduler.Cue cue : wake.fired) {
+            // 实际进度与提示点时间之差即本次触发的抖动
+            statusListener.onCue(cue.id, cue.timeMs, position - cue.timeMs);
+        }
+        if (wake.loopBack) {
+            seekTo((int) cues.loopStart());
+            return;
+        }
+        scheduleCue();
+    }
+
+    /* ***************************** 交叉淡入淡出 ***************************** */
+
+    /**
+     * 设置交叉淡入淡出时长
+     *
+     * @param durationMs 毫秒，0 表示硬切
+     */
+    void setCrossfade(int durationMs) {
+        crossfadeMs = Math.max(0, durationMs);
+        if (isPrepared() && nextInfo == null) preloadFromQueue();
+        scheduleCrossfade();
+    }
+
+    /**
+     * 为队列中接下来的曲目做准备：预热下一首的音频与封面主机（首包不再包含 DNS 与握手耗时），
+     * 并按网络与省电状态预取接下来几首的开头与封面
+     */
+    private void prepareUpcoming() {
+        if (queue.isEmpty() || queue.mode() == PlayQueue.MODE_SINGLE) {
+            Prefetcher.cancel();
+            return;
+        }
+        List<MediaInfo> upcoming = new ArrayList<>(Prefetcher.ITEMS);
+        for (int step = 1; step <= Prefetcher.ITEMS; step++) {
+            MediaInfo item = queue.get(queue.peek(step));
+            if (item != null && item != mediaInfo && !upcoming.contains(item)) upcoming.add(item);
+        }
+        if (!upcoming.isEmpty() && !upcoming.get(0).isAsset) {
+            NetworkPool.preconnect(Arrays.asList(upcoming.get(0).url, upcoming.get(0).cover));
+        }
+        Prefetcher.schedule(context, upcoming);
+    }
+
+    /**
+     * 原生队列存在时由原生自行预加载下一首，无需 Dart 调用 preload
+     */
+    private void preloadFromQueue() {
+        if (crossfadeMs <= 0 || queue.isEmpty() || queue.mode() == PlayQueue.MODE_SINGLE) return;
+        MediaInfo next = queue.get(queue.peek(1));
+        if (next != null && next != nextInfo) preload(next);
+    }
+
+    /**
+     * 预加载下一首：提前在第二个 MediaPlayer 上 prepare，
+     * 当前曲目剩余 crossfade 时长时开始交叉淡入淡出
+     */
+    void preload(MediaInfo info) {
+        releaseNext();
+        if (info == null || info.url == null || info.url.equals(curUrl)) return;
+        MediaPlayer next = new MediaPlayer();
+        next.setWakeMode(context, PowerManager.PARTIAL_WAKE_LOCK);
+        next.setOnPreparedListener(mp -> {
+            isNextPrepare = true;
+            scheduleCrossfade();
+        });
+        next.setOnErrorListener((mp, what, extra) -> {
+            Diagnostics.log(Log.WARN, TAG, "preload failed what:%d extra:%d", what, extra);
+            releaseNext();
+            return true;
+        });
+        try {
+            if (info.isAsset) {
+                AssetFileDescriptor descriptor = context.getAssets().openFd(info.url);
+                next.setDataSource(descriptor.getFileDescriptor(), descriptor.getStartOffset(), descriptor.getLength());
+                descriptor.close();
+            } else {
+                selectVariant(info);
+                if (info.currentVariant() == null && !info.mirrors.isEmpty()) {
+                    // 预加载不竞速，只用已有统计
+                    info.mirror = MirrorRace.preferred(context, mirrorCandidates(info));
+                }
+                setSource(next, info.playUrl());
+            }
+            next.prepareAsync();
+        } catch (Exception e) {
+            Log.w(TAG, "preload failed: " + info.url, e);
+            next.release();
+            return;
+        }
+        uiHolder.nextPlayer = next;
+        nextInfo = info;
+    }
+
+    private void releaseNext() {
+        refress_time_handler.removeCallbacks(crossfade_Thread);
+        if (uiHolder.nextPlayer != null) {
+            uiHolder.nextPlayer.release();
+            uiHolder.nextPlayer = null;
+        }
+        nextInfo = null;
+        isNextPrepare = false;
+    }
+
+    /**
+     * 按当前进度与速率计算交叉淡入的起点，只设一个定时器而不是逐次轮询；
+     * 播放、暂停、拖动、变速后都需重新计算
+     */
+    private void scheduleCrossfade() {
+        refress_time_handler.removeCallbacks(crossfade_Thread);
+        if (crossfadeMs <= 0 || !isNextPrepare || !isPlaying()) return;
+        long remain = duration() - position() - crossfadeMs;
+        refress_time_handler.postDelayed(crossfade_Thread, Math.max(0, (long) (remain / speed)));
+    }
+
+    private final Runnable crossfade_Thread = this::beginCrossfade;
+
+    private void beginCrossfade() {
+        MediaPlayer outgoing = uiHolder.player;
+        MediaPlayer incoming = uiHolder.nextPlayer;
+        MediaInfo info = nextInfo;
+        if (outgoing == null || incoming == null || info == null || !isNextPrepare) return;
+        uiHolder.nextPlayer = null;
+        nextInfo = null;
+        isNextPrepare = false;
+
+        // 旧播放器只负责淡出，不再上报结束/错误等事件
+        outgoing.setOnCompletionListener(null);
+        outgoing.setOnErrorListener(null);
+        outgoing.setOnInfoListener(null);
+        outgoing.setOnBufferingUpdateListener(null);
+        outgoing.setOnSeekCompleteListener(null);
+        finishCrossfade();
+        uiHolder.fadingPlayer = outgoing;
+        saveResume(0, false);
+
+        uiHolder.player = incoming;
+        mediaInfo = info;
+        curUrl = info.url;
+        fullyBuffered = OfflineDownloads.completed(context, curUrl) != null;
+        stallCount = 0;
+        lastBufferPercent = -1;
+        recovery.reset();
+        lastPositionMs = 0;
+        clearLyrics();
+        clearCues();
+        initPlayerListener();
+        if (speed != 1f && Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+            try {
+                incoming.setPlaybackParams(incoming.getPlaybackParams().setSpeed(speed));
+            } catch (Exception e) {
+                Log.e(TAG, "crossfade speed: ", e);
+            }
+        }
+        long fadeMs = (long) (crossfadeMs / speed);
+        VolumeFader.fadeOut(outgoing, fadeMs, refress_time_handler, () -> {
+            if (uiHolder.fadingPlayer == outgoing) uiHolder.fadingPlayer = null;
+            outgoing.release();
+        });
+        VolumeFader.fadeIn(incoming, fadeMs, refress_time_handler);
+        incoming.start();
+        transition(PlayerState.PLAYING);
+
+        statusListener.onCrossfade(info.url);
+        if (!queue.isEmpty() && queue.get(queue.peek(1)) == info) {
+            statusListener.onQueueIndex(queue.move(1), "crossfade");
+        }
+        statusListener.onReady(duration());
+        saveSession(true);
+        syncService();
+        preloadFromQueue();
+    }
+
+    /**
+     * 立即结束正在淡出的旧曲目（暂停/停止/再次交叉时调用）
+     */
+    private void finishCrossfade() {
+        if (uiHolder.fadingPlayer != null) {
+            uiHolder.fadingPlayer.release();
+            uiHolder.fadingPlayer = null;
+        }
+    }
+
+    /* ***************************** 共享内存时钟 ***************************** */
+
+    /**
+     * 打开共享内存时钟（首次调用时创建映射文件）
+     *
+     * @return 映射文件路径，失败返回 null
+     */
+    String openPositionClock() {
+        if (clock == null) {
+            try {
+                clock = PositionClock.open(new File(context.getCacheDir(), "audio_manager_clock_" + playerId));
+            } catch (IOException e) {
+                Log.e(TAG, "openPositionClock: ", e);
+                return null;
+            }
+        }
+        transition(state);
+        return clock.path();
+    }
+
+    private void transition(int next) {
+        transition(next, PlayerState.isPrepared(next) ? position() : 0);
+    }
+
+    /**
+     * 状态机唯一写入口（主线程）：更新状态并整体替换只读快照，
+     * 同时发布共享时钟锚点（播放中由读方按 锚点 + 经过时间 × 速率 外推）与 wifi 锁
+     */
+    private void transition(int next, long positionMs) {
+        if (next != state) Diagnostics.state(playerId, state, next);
+        state = next;
+        long durationMs = isPrepared() ? duration() : 0;
+        snapshot = new PlayerState(next, isPlaying(), mediaInfo.url, mediaInfo.title, mediaInfo.desc,
+                mediaInfo.cover, positionMs, durationMs, speed, queueIndex());
+        updateNetworkLock(next);
+        if (clock != null) clock.publish(next, positionMs, durationMs, speed);
+    }
+
+    /* ***************************** 原生播放队列 ***************************** */
+
+    /**
+     * 由 Dart 整体同步播放队列，items 为空时清空队列
+     */
+    void setQueue(List<MediaInfo> items, int index, int mode, List<Integer> shuffle, boolean autoAdvance) {
+        if (items == null || items.isEmpty()) {
+            queue.clear();
+            Prefetcher.cancel();
+            return;
+        }
+        queue.set(items, index, mode, shuffle, autoAdvance);
+        if (isPrepared() && crossfadeMs > 0) preloadFromQueue();
+        if (isPrepared()) prepareUpcoming();
+    }
+
+    /**
+     * Dart 主动播放队列中的某一首时同步游标
+     */
+    void moveQueueTo(int index) {
+        if (!queue.isEmpty()) queue.moveTo(index);
+    }
+
+    /**
+     * 在原生队列中切歌，先通知 Dart 新的下标再开始加载
+     *
+     * @param step   1 下一首，-1 上一首
+     * @param reason 切换原因，随 queueIndex 事件回传
+     * @return 队列为空时返回 false，由调用方走原有的 Dart 切歌流程
+     */
+    boolean skip(int step, String reason) {
+        if (queue.isEmpty()) return false;
+        int index = queue.move(step);
+        MediaInfo info = queue.get(index);
+        if (info == null) return false;
+        info.isAuto = true;
+        statusListener.onQueueIndex(index, reason);
+        try {
+            start(info);
+        } catch (Exception e) {
+            statusListener.onError(e.toString());
+        }
+        return true;
     }
 
     /**
@@ -808,7 +1873,7 @@ public class MediaPlayerHelper {
         public void handleMessage(Message msg) {
             switch (msg.what){
                 case ERROR:
-                    onStatusCallbackNext(CallBackState.error, msg.obj);
+                    statusListener.onError(String.valueOf(msg.obj));
                     break;
             }
         }
@@ -819,12 +1884,16 @@ public class MediaPlayerHelper {
             try {
                 if (uiHolder.player != null && uiHolder.player.isPlaying()) {
                     int duraction = uiHolder.player.getDuration();
+                    int position = uiHolder.player.getCurrentPosition();
+                    lastPositionMs = position;
                     if (duraction > 0) {
-                        onStatusCallbackNext(CallBackState.progress, 100 * uiHolder.player.getCurrentPosition() / duraction);
+                        statusListener.onProgress(position, duraction);
                     }
+                    saveResume(position, false);
+                    saveSession(false);
                 }
             } catch (IllegalStateException e) {
-                onStatusCallbackNext(CallBackState.error, e.toString());
+                statusListener.onError(e.toString());
             }
             refress_time_handler.postDelayed(refress_time_Thread, delaySecondTime);
         }
@@ -832,20 +1901,13 @@ public class MediaPlayerHelper {
 
     // 网络获取图片
     private Bitmap getBitmapFromUrl(String urlString) {
-        Bitmap bitmap;
-        InputStream is;
-        try {
-            URL url = new URL(urlString);
-            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-            is = new BufferedInputStream(connection.getInputStream());
-            bitmap = BitmapFactory.decodeStream(is);
-            connection.disconnect();
-            is.close();
-            return bitmap;
-        } catch (IOException e) {
-            Log.w(TAG, "Failed to load cover: " + urlString, e);
+        // 经封面缓存读取：预取过的封面不再走网络
+        File file = CoverCache.fetch(context, urlString);
+        if (file == null) {
+            Log.w(TAG, "Failed to load cover: " + urlString);
+            return null;
         }
-        return null;
+        return BitmapFactory.decodeFile(file.getPath());
     }
 
     private static final int ERROR = 0x1;
@@ -855,29 +1917,185 @@ public class MediaPlayerHelper {
     private static final class Holder {
         private SurfaceHolder surfaceHolder;
         private MediaPlayer player;
+        private MediaPlayer nextPlayer;//预加载的下一首
+        private MediaPlayer fadingPlayer;//交叉淡出中的上一首
         private SurfaceView surfaceView;
         private AssetFileDescriptor assetDescriptor;
     }
 
     /* ***************************** StatusCallback ***************************** */
 
-    private OnStatusCallbackListener onStatusCallbackListener;
+    private static final StatusListener NO_LISTENER = new StatusListener() {
+    };
+    private StatusListener statusListener = NO_LISTENER;
+
+    /**
+     * 类型化状态回调：参数均为基本类型，进度、缓冲等高频事件不分配对象、不装箱。
+     * 默认空实现，按需覆写
+     */
+    public interface StatusListener {
+        default void onReady(long durationMs) {
+        }
+
+        default void onProgress(long positionMs, long durationMs) {
+        }
+
+        default void onBuffering(int percent) {
+        }
+
+        default void onPlayStatus(boolean playing) {
+        }
+
+        default void onSeekComplete(long positionMs) {
+        }
+
+        default void onEnded() {
+        }
+
+        default void onStop() {
+        }
+
+        default void onNext() {
+        }
+
+        default void onPrevious() {
+        }
+
+        default void onError(String message) {
+        }
+
+        default void onInfo(int what, int extra) {
+        }
+
+        default void onCrossfade(String url) {
+        }
+
+        default void onQueueIndex(int index, String reason) {
+        }
+
+        default void onCue(String id, long positionMs, long jitterMs) {
+        }
+
+        /**
+         * 网络错误后第 attempt 次重试将在 delayMs 后开始
+         */
+        default void onRecovering(int attempt, long delayMs) {
+        }
+
+        /**
+         * 视频与 SurfaceView 相关的低频回调，保留原有参数
+         */
+        default void onVideoEvent(CallBackState status, Object... args) {
+        }
+    }
+
+    public MediaPlayerHelper setStatusListener(StatusListener statusListener) {
+        this.statusListener = statusListener != null ? statusListener : NO_LISTENER;
+        return this;
+    }
 
-    // 接口类 -> OnStatusCallbackListener
+    // 接口类 -> OnStatusCallbackListener（兼容旧接口，每次回调都会分配参数数组）
     public interface OnStatusCallbackListener {
         void onStatusonStatusCallbackNext(CallBackState status, Object... args);
     }
 
-    // 对外暴露接口 -> setOnStatusCallbackListener
+    // 对外暴露接口 -> setOnStatusCallbackListener，内部转为类型化回调
     public MediaPlayerHelper setOnStatusCallbackListener(OnStatusCallbackListener onStatusCallbackListener) {
-        this.onStatusCallbackListener = onStatusCallbackListener;
-        return instance;
+        return setStatusListener(onStatusCallbackListener == null
+                ? null : new LegacyStatusAdapter(onStatusCallbackListener));
     }
 
-    // 内部使用方法 -> StatusCallbackNext
-    private void onStatusCallbackNext(CallBackState status, Object... args) {
-        if (onStatusCallbackListener != null) {
-            onStatusCallbackListener.onStatusonStatusCallbackNext(status, args);
+    /**
+     * 把类型化回调还原为旧的 (状态, 参数...) 形式，参数类型与旧接口一致：
+     * ready 为 holder 描述，seekComplete、ended 为 MediaPlayer，buffering、INFO 首个参数为 MediaPlayer，
+     * progress 为百分比
+     */
+    private final class LegacyStatusAdapter implements StatusListener {
+        private final OnStatusCallbackListener legacy;
+
+        LegacyStatusAdapter(OnStatusCallbackListener legacy) {
+            this.legacy = legacy;
+        }
+
+        @Override
+        public void onReady(long durationMs) {
+            String holderMsg = "holder -";
+            if (uiHolder.surfaceHolder != null) {
+                holderMsg = holderMsg + " height：" + uiHolder.surfaceHolder.getSurfaceFrame().height();
+                holderMsg = holderMsg + " width：" + uiHolder.surfaceHolder.getSurfaceFrame().width();
+            }
+            legacy.onStatusonStatusCallbackNext(CallBackState.ready, holderMsg);
+        }
+
+        @Override
+        public void onProgress(long positionMs, long durationMs) {
+            int percent = durationMs > 0 ? (int) (100 * positionMs / durationMs) : 0;
+            legacy.onStatusonStatusCallbackNext(CallBackState.progress, percent);
+        }
+
+        @Override
+        public void onBuffering(int percent) {
+            legacy.onStatusonStatusCallbackNext(CallBackState.buffering, uiHolder.player, percent);
+        }
+
+        @Override
+        public void onPlayStatus(boolean playing) {
+            legacy.onStatusonStatusCallbackNext(CallBackState.playOrPause, playing);
+        }
+
+        @Override
+        public void onSeekComplete(long positionMs) {
+            legacy.onStatusonStatusCallbackNext(CallBackState.seekComplete, uiHolder.player);
+        }
+
+        @Override
+        public void onEnded() {
+            legacy.onStatusonStatusCallbackNext(CallBackState.ended, uiHolder.player);
+        }
+
+        @Override
+        public void onStop() {
+            legacy.onStatusonStatusCallbackNext(CallBackState.stop);
+        }
+
+        @Override
+        public void onNext() {
+            legacy.onStatusonStatusCallbackNext(CallBackState.next);
+        }
+
+        @Override
+        public void onPrevious() {
+            legacy.onStatusonStatusCallbackNext(CallBackState.previous);
+        }
+
+        @Override
+        public void onError(String message) {
+            legacy.onStatusonStatusCallbackNext(CallBackState.error, message);
+        }
+
+        @Override
+        public void onInfo(int what, int extra) {
+            legacy.onStatusonStatusCallbackNext(CallBackState.INFO, uiHolder.player, what, extra);
+        }
+
+        @Override
+        public void onCrossfade(String url) {
+            legacy.onStatusonStatusCallbackNext(CallBackState.crossfade, url);
+        }
+
+        @Override
+        public void onQueueIndex(int index, String reason) {
+            legacy.onStatusonStatusCallbackNext(CallBackState.queueIndex, index, reason);
+        }
+
+        @Override
+        public void onCue(String id, long positionMs, long jitterMs) {
+            legacy.onStatusonStatusCallbackNext(CallBackState.cue, id, positionMs, jitterMs);
+        }
+
+        @Override
+        public void onVideoEvent(CallBackState status, Object... args) {
+            legacy.onStatusonStatusCallbackNext(status, args);
         }
     }
 
@@ -16,6 +16,7 @@ import android.os.Binder;
 import android.os.Build;
 import android.os.IBinder;
 import android.util.Log;
+import android.view.KeyEvent;
 import android.view.View;
 import android.widget.RemoteViews;
 
@@ -27,10 +28,13 @@ import android.support.v4.media.session.MediaSessionCompat;
 import android.support.v4.media.session.PlaybackStateCompat;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 public class MediaPlayerService extends Service {
+    private static final String TAG = "MediaPlayerService";
     private static final String ACTION_NEXT = "MediaPlayerService_next";
     private static final String ACTION_PREVIOUS = "MediaPlayerService_previous";
     private static final String ACTION_PLAY_OR_PAUSE = "MediaPlayerService_playOrPause";
@@ -61,6 +65,8 @@ public class MediaPlayerService extends Service {
         } else {
             stopForeground(true);
         }
+        isForeground = false;
+        if (Diagnostics.isLoggable(Log.DEBUG)) Log.d(TAG, "destroy, " + lifecycleStats());
         // 停止服务
         stopSelf();
     }
@@ -68,9 +74,74 @@ public class MediaPlayerService extends Service {
     @Override
     public void onCreate() {
         super.onCreate();
+        createCount++;
+        Diagnostics.log(Log.DEBUG, TAG, "create #%d", createCount);
         setupNotification();
     }
 
+    @Override
+    public int onStartCommand(Intent intent, int flags, int startId) {
+        if (intent != null && Intent.ACTION_MEDIA_BUTTON.equals(intent.getAction())) {
+            // 由 getForegroundService 拉起时必须在 5 秒内进入前台
+            startForegroundIfNeeded();
+            handleMediaButton(intent);
+        }
+        return super.onStartCommand(intent, flags, startId);
+    }
+
+    /**
+     * 会话失活（进程被回收）后系统把媒体按键投递到 setMediaButtonReceiver 的 PendingIntent，
+     * 此时 Flutter 引擎尚未启动：播放键直接按会话快照重建播放，其余按键无事可做，退出前台并停止；
+     * 有会话时照常分发
+     */
+    @SuppressWarnings("deprecation")
+    private void handleMediaButton(Intent intent) {
+        KeyEvent event = intent.getParcelableExtra(Intent.EXTRA_KEY_EVENT);
+        if (event == null || event.getAction() != KeyEvent.ACTION_DOWN) return;
+        int keyCode = event.getKeyCode();
+        if (!MediaPlayerHelper.hasActiveSession()) {
+            boolean play = keyCode == KeyEvent.KEYCODE_MEDIA_PLAY
+                    || keyCode == KeyEvent.KEYCODE_MEDIA_PLAY_PAUSE
+                    || keyCode == KeyEvent.KEYCODE_HEADSETHOOK;
+            if (!play || !MediaPlayerHelper.restoreSession(this)) stopIdle();
+            return;
+        }
+        switch (keyCode) {
+            case KeyEvent.KEYCODE_MEDIA_PLAY:
+            case KeyEvent.KEYCODE_MEDIA_PLAY_PAUSE:
+            case KeyEvent.KEYCODE_HEADSETHOOK:
+                // 只有播放/暂停键与耳机键是切换，PLAY 与 PAUSE 各自只做一件事
+                boolean toggle = keyCode != KeyEvent.KEYCODE_MEDIA_PLAY;
+                CommandBus.dispatch(toggle ? Events.playOrPause : Events.play, event.getEventTime());
+                break;
+            case KeyEvent.KEYCODE_MEDIA_PAUSE:
+                CommandBus.dispatch(Events.pause, event.getEventTime());
+                break;
+            case KeyEvent.KEYCODE_MEDIA_NEXT:
+                CommandBus.dispatch(Events.next, event.getEventTime());
+                break;
+            case KeyEvent.KEYCODE_MEDIA_PREVIOUS:
+                CommandBus.dispatch(Events.previous, event.getEventTime());
+                break;
+            case KeyEvent.KEYCODE_MEDIA_STOP:
+                CommandBus.dispatch(Events.stop, event.getEventTime());
+                break;
+        }
+    }
+
+    /**
+     * 为响应媒体按键进入了前台却没有可操作的播放器：移除空白通知并停止服务
+     */
+    private void stopIdle() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU) {
+            stopForeground(STOP_FOREGROUND_REMOVE);
+        } else {
+            stopForeground(true);
+        }
+        isForeground = false;
+        stopSelf();
+    }
+
     /**
      * 用户从最近任务上滑移除应用时调用。
      * 前台服务的默认行为是继续运行、通知继续显示；
@@ -81,7 +152,8 @@ public class MediaPlayerService extends Service {
         super.onTaskRemoved(rootIntent);
         // release() 内部会 stop() 停止播放 + unBind() 解除绑定（触发 onDestroy 清理通知/前台）
         // 并释放 wifi 锁；不依赖事件回调链（任务移除时进程即将销毁，回调链不可靠）
-        MediaPlayerHelper.getInstance(getApplicationContext()).release();
+        // 多播放器时逐个释放，避免非主播放器在任务移除后继续发声
+        MediaPlayerHelper.releaseAll();
         // 兜底：万一未走 unBind->onDestroy，这里显式移除通知并停止前台
         if (notificationManager != null)
             notificationManager.cancel(NOTIFICATION_PENDING_ID);
@@ -105,7 +177,7 @@ public class MediaPlayerService extends Service {
 
 
     public enum Events {
-        next, previous, playOrPause, stop, binder
+        next, previous, playOrPause, stop, binder, play, pause
     }
 
     public interface ServiceEvents {
@@ -115,52 +187,71 @@ public class MediaPlayerService extends Service {
     private static ServiceEvents serviceEvents;
     private static MediaPlayerService bindService;
     private static boolean isBindService = false;
+    private static boolean isBinding = false;//已发起绑定、等待 onServiceConnected
     private static Context context;
 
+    // 生命周期计数：用于确认切歌时没有重复绑定、重复创建服务或重复进入前台
+    private static int bindCount = 0;
+    private static int createCount = 0;
+    private static int foregroundCount = 0;
+    private static int notificationBuildCount = 0;
+
+    static Map<String, Object> lifecycleStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("binds", bindCount);
+        stats.put("creates", createCount);
+        stats.put("foregrounds", foregroundCount);
+        stats.put("notificationBuilds", notificationBuildCount);
+        stats.put("bound", isBindService);
+        stats.put("foreground", bindService != null && bindService.isForeground);
+        stats.putAll(CommandBus.stats());
+        stats.putAll(ErrorRecovery.stats());
+        return stats;
+    }
+
     // 绑定服务 必须先调用 registerReceiver
+    // 绑定在整个播放会话内保持：只有首次（或 unBind 之后）才真正 bindService，之后仅替换回调
     public static void bindService(ServiceEvents serviceEvents) {
         MediaPlayerService.serviceEvents = serviceEvents;
+        CommandBus.setTarget(serviceEvents);
 
-        if (!MediaPlayerService.isBindService) {
+        if (!MediaPlayerService.isBindService && !MediaPlayerService.isBinding) {
             Intent intent = new Intent(context, MediaPlayerService.class);
-            // 先以 started service 方式启动，确保 onTaskRemoved 能被回调
-            // （仅 bindService 的 bound-only 服务收不到任务移除回调，导致上滑删除后音乐与通知残留）
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-                context.startForegroundService(intent);
-            } else {
-                context.startService(intent);
-            }
+            isBinding = true;
+            bindCount++;
+            Diagnostics.log(Log.DEBUG, TAG, "bind #%d", bindCount);
             /*
              * Service：Service的桥梁
              * ServiceConnection：处理链接状态
              * flags：BIND_AUTO_CREATE, BIND_DEBUG_UNBIND, BIND_NOT_FOREGROUND, BIND_ABOVE_CLIENT, BIND_ALLOW_OOM_MANAGEMENT, or BIND_WAIVE_PRIORITY.
              */
             context.bindService(intent, serviceConnection, Context.BIND_AUTO_CREATE);
-        } else {
+        } else if (isBindService) {
             if (serviceEvents != null) serviceEvents.onEvents(Events.binder, bindService);
         }
 
     }
 
     /// 通知事件处理，只能加载一次，否则会重复
+    /// 仅通知栏按钮的 PendingIntent 走广播，收到后同样交给命令总线
     public static void registerReceiver(Context context) {
         MediaPlayerService.context = context;
         BroadcastReceiver playerReceiver = new BroadcastReceiver() {
             @Override
             public void onReceive(Context context, Intent intent) {
-                Log.d("action", intent.getAction());
+                Diagnostics.log(Log.DEBUG, "action", "%s", intent.getAction());
                 switch (Objects.requireNonNull(intent.getAction())) {
                     case ACTION_NEXT:
-                        serviceEvents.onEvents(Events.next);
+                        CommandBus.dispatch(Events.next);
                         break;
                     case ACTION_PREVIOUS:
-                        serviceEvents.onEvents(Events.previous);
+                        CommandBus.dispatch(Events.previous);
                         break;
                     case ACTION_PLAY_OR_PAUSE:// 暂停/播放
-                        serviceEvents.onEvents(Events.playOrPause);
+                        CommandBus.dispatch(Events.playOrPause);
                         break;
                     case ACTION_STOP:
-                        serviceEvents.onEvents(Events.stop);
+                        CommandBus.dispatch(Events.stop);
                         break;
                 }
             }
@@ -184,6 +275,7 @@ public class MediaPlayerService extends Service {
             context.unbindService(serviceConnection);
             isBindService = false;
         }
+        isBinding = false;
     }
 
     /**
@@ -198,6 +290,7 @@ public class MediaPlayerService extends Service {
             ServiceBinder binder = (ServiceBinder) service;
             bindService = (MediaPlayerService) binder.getService();
             isBindService = true;
+            isBinding = false;
             if (serviceEvents != null) serviceEvents.onEvents(Events.binder, bindService);
         }
 
@@ -217,6 +310,7 @@ public class MediaPlayerService extends Service {
     private static final int PLAY_PENDING_REQUESTS = 1025;
     private static final int STOP_PENDING_REQUESTS = 1026;
     private static final int PREVIOUS_PENDING_REQUESTS = 1027;
+    private static final int MEDIA_BUTTON_PENDING_REQUESTS = 1028;
     private static final int NOTIFICATION_PENDING_ID = 1;
 
     private NotificationManager notificationManager;
@@ -236,6 +330,8 @@ public class MediaPlayerService extends Service {
     private boolean showNextButton = true;
     private boolean showStopButton = true;
     private Bitmap coverBitmap;
+    private boolean isForeground = false;
+    private long mediaButtonTime = 0;//正在分发的媒体按键发生时间（uptimeMillis），非按键触发时为 0
 
     private void setupNotification() {
         Intent contentIntent = getPackageManager().getLaunchIntentForPackage(getPackageName());
@@ -248,32 +344,54 @@ public class MediaPlayerService extends Service {
         mediaSession = new MediaSessionCompat(this, "audio_manager");
         // 已设置 MediaSessionCompat.Callback 处理媒体按钮与传输控制，
         // FLAG_HANDLES_MEDIA_BUTTONS / FLAG_HANDLES_TRANSPORT_CONTROLS 已废弃且不再需要
+        // 回调在主线程触发，经命令总线直接交给播放器，不再 sendBroadcast 绕行
         mediaSession.setCallback(new MediaSessionCompat.Callback() {
+            @SuppressWarnings("deprecation")
+            @Override
+            public boolean onMediaButtonEvent(Intent mediaButtonEvent) {
+                // 记下按键发生时间，用于统计按键到播放器处理的延迟；默认实现会同步回调 onPlay 等
+                KeyEvent event = mediaButtonEvent.getParcelableExtra(Intent.EXTRA_KEY_EVENT);
+                mediaButtonTime = event == null ? 0 : event.getEventTime();
+                boolean handled = super.onMediaButtonEvent(mediaButtonEvent);
+                mediaButtonTime = 0;
+                return handled;
+            }
+
             @Override
             public void onPlay() {
-                dispatchAction(ACTION_PLAY_OR_PAUSE);
+                dispatch(Events.play);
             }
 
             @Override
             public void onPause() {
-                dispatchAction(ACTION_PLAY_OR_PAUSE);
+                dispatch(Events.pause);
             }
 
             @Override
             public void onSkipToNext() {
-                dispatchAction(ACTION_NEXT);
+                dispatch(Events.next);
             }
 
             @Override
             public void onSkipToPrevious() {
-                dispatchAction(ACTION_PREVIOUS);
+                dispatch(Events.previous);
             }
 
             @Override
             public void onStop() {
-                dispatchAction(ACTION_STOP);
+                dispatch(Events.stop);
             }
         });
+        // 会话失活后媒体按键由系统通过该 PendingIntent 重新拉起本服务，见 handleMediaButton
+        Intent mediaButtonIntent = new Intent(Intent.ACTION_MEDIA_BUTTON).setClass(this, MediaPlayerService.class);
+        int mediaButtonFlags = pendingIntentFlags(PendingIntent.FLAG_UPDATE_CURRENT);
+        PendingIntent mediaButtonPendingIntent;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            mediaButtonPendingIntent = PendingIntent.getForegroundService(this, MEDIA_BUTTON_PENDING_REQUESTS, mediaButtonIntent, mediaButtonFlags);
+        } else {
+            mediaButtonPendingIntent = PendingIntent.getService(this, MEDIA_BUTTON_PENDING_REQUESTS, mediaButtonIntent, mediaButtonFlags);
+        }
+        mediaSession.setMediaButtonReceiver(mediaButtonPendingIntent);
         mediaSession.setActive(true);
 
         // 自定义布局
@@ -311,18 +429,46 @@ public class MediaPlayerService extends Service {
         applyNotificationConfig();
         refreshNotification(false, "", "");
         updateSessionState(false);
+    }
 
-        // 前台服务
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.UPSIDE_DOWN_CAKE) {
-            startForeground(NOTIFICATION_PENDING_ID, builder.build(), ServiceInfo.FOREGROUND_SERVICE_TYPE_MEDIA_PLAYBACK);
-        } else {
-            startForeground(NOTIFICATION_PENDING_ID, builder.build());
+    /**
+     * 真正开始播放时才进入前台：绑定期间（准备阶段）不构建、不展示通知卡片。
+     * 同时以 started 方式启动自身，确保 onTaskRemoved 能被回调
+     * （仅 bindService 的 bound-only 服务收不到任务移除回调，导致上滑删除后音乐与通知残留）。
+     * Android 12+ 应用已在后台时（如准备很慢、完成前用户已离开）系统会拒绝，
+     * 此时不记为前台，下一次用户发起的播放再试
+     *
+     * @return 是否已在前台
+     */
+    boolean startForegroundIfNeeded() {
+        if (isForeground) return true;
+        Intent intent = new Intent(this, MediaPlayerService.class);
+        try {
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+                startForegroundService(intent);
+            } else {
+                startService(intent);
+            }
+            builder = buildNotification(currentPlaying, currentTitle, currentDesc);
+            notificationBuildCount++;
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.UPSIDE_DOWN_CAKE) {
+                startForeground(NOTIFICATION_PENDING_ID, builder.build(), ServiceInfo.FOREGROUND_SERVICE_TYPE_MEDIA_PLAYBACK);
+            } else {
+                startForeground(NOTIFICATION_PENDING_ID, builder.build());
+            }
+        } catch (IllegalStateException e) {
+            // ForegroundServiceStartNotAllowedException 是 IllegalStateException 的子类
+            Diagnostics.error("startForeground: " + e);
+            return false;
         }
+        isForeground = true;
+        foregroundCount++;
+        Diagnostics.log(Log.DEBUG, TAG, "startForeground #%d", foregroundCount);
+        return true;
     }
 
-    private void dispatchAction(String action) {
-        Intent intent = new Intent(action).setPackage(getPackageName());
-        sendBroadcast(intent);
+    private void dispatch(Events event) {
+        CommandBus.dispatch(event, mediaButtonTime);
     }
 
     private NotificationCompat.Builder buildNotification(boolean isPlaying, String title, String desc) {
@@ -399,7 +545,10 @@ public class MediaPlayerService extends Service {
         currentPlaying = isPlaying;
         currentTitle = title;
         currentDesc = desc;
+        // 进入前台前只记录状态，卡片在 startForegroundIfNeeded 时一次性构建
+        if (!isForeground) return;
         builder = buildNotification(isPlaying, title, desc);
+        notificationBuildCount++;
         if (notificationManager != null) {
             notificationManager.notify(NOTIFICATION_PENDING_ID, builder.build());
         }
@@ -0,0 +1,321 @@
+package cc.dync.audio_manager;
+
+import android.content.Context;
+import android.content.res.AssetFileDescriptor;
+import android.media.MediaMetadataRetriever;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 媒体信息探测
+ * 用 MediaMetadataRetriever 读取时长、码率、标题、艺术家、专辑与是否带内嵌封面，不经过播放器。
+ * 在 THREADS 个后台线程上并行，每完成一项立即回调；结果按 url 缓存并落盘，
+ * 以文件的修改时间与大小（本地）、ETag/Last-Modified（网络）或安装包时间（assets）判断是否失效。
+ * 网络缓存 REVALIDATE_MS 内直接使用，过期后发 HEAD 校验，校验失败（如离线）仍用旧结果
+ * <p>
+ * 文件布局：int32 magic | int32 version | int32 条数 | 每条：int64 url 哈希 | UTF 校验值 | int64 校验时间 |
+ * int64 时长(ms) | int32 码率 | UTF 标题 | UTF 艺术家 | UTF 专辑 | boolean 内嵌封面
+ */
+final class MetadataProbe {
+    private static final String TAG = "MetadataProbe";
+    private static final String FILE_NAME = "audio_manager_probe.bin";
+    private static final int MAGIC = 0x414d5042;
+    private static final int VERSION = 1;
+    private static final int THREADS = 4;
+    private static final int MAX_ENTRIES = 5000;
+    private static final long REVALIDATE_MS = 24 * 60 * 60_000L;
+
+    interface Callback {
+        void onResult(String url, Map<String, Object> result);
+    }
+
+    /**
+     * 待探测的一项：url 用于回调与缓存，assetPath 不为空时从 assets 读取
+     */
+    static final class Item {
+        final String url;
+        final String assetPath;
+
+        Item(String url, String assetPath) {
+            this.url = url;
+            this.assetPath = assetPath;
+        }
+    }
+
+    private static final class Entry {
+        String validator;
+        long checkedAt;
+        long durationMs;
+        int bitrate;
+        String title;
+        String artist;
+        String album;
+        boolean hasArtwork;
+
+        /**
+         * checkedAt 会在锁内更新，落盘时写副本
+         */
+        Entry copy() {
+            Entry copy = new Entry();
+            copy.validator = validator;
+            copy.checkedAt = checkedAt;
+            copy.durationMs = durationMs;
+            copy.bitrate = bitrate;
+            copy.title = title;
+            copy.artist = artist;
+            copy.album = album;
+            copy.hasArtwork = hasArtwork;
+            return copy;
+        }
+    }
+
+    private static final ExecutorService executor = Executors.newFixedThreadPool(THREADS, runnable -> {
+        Thread thread = new Thread(() -> {
+            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+            runnable.run();
+        }, "audio_manager_probe");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final ExecutorService writer = Executors.newSingleThreadExecutor();
+    // url 哈希 -> 结果，按访问顺序，超出上限时淘汰最久未用的
+    private static final Map<Long, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private static File file;
+
+    private MetadataProbe() {
+    }
+
+    /**
+     * 探测 items，每项完成后在探测线程上回调；整批完成后落盘一次。
+     * 首次调用时缓存文件在写线程上读取，这一批排在加载完成之后再交给探测线程
+     */
+    static void probe(Context context, List<Item> items, Callback callback) {
+        final Context appContext = context.getApplicationContext();
+        writer.execute(() -> {
+            synchronized (MetadataProbe.class) {
+                load(appContext);
+            }
+            final AtomicInteger remaining = new AtomicInteger(items.size());
+            for (Item item : items) {
+                executor.execute(() -> {
+                    try {
+                        callback.onResult(item.url, probe(appContext, item));
+                    } finally {
+                        if (remaining.decrementAndGet() == 0) save();
+                    }
+                });
+            }
+        });
+    }
+
+    private static Map<String, Object> probe(Context context, Item item) {
+        long begin = SystemClock.elapsedRealtime();
+        long hash = ResumeStore.hash(item.url);
+        Entry cached;
+        long checkedAt = 0;
+        synchronized (MetadataProbe.class) {
+            cached = entries.get(hash);
+            if (cached != null) checkedAt = cached.checkedAt;
+        }
+        boolean network = item.assetPath == null && item.url.startsWith("http");
+        String validator;
+        if (network && cached != null && System.currentTimeMillis() - checkedAt < REVALIDATE_MS) {
+            validator = cached.validator;
+        } else {
+            validator = validator(context, item, network);
+        }
+        // 网络校验失败（如离线）时沿用旧结果
+        if (cached != null && (validator == null ? network : validator.equals(cached.validator))) {
+            if (network && validator != null) {
+                synchronized (MetadataProbe.class) {
+                    cached.checkedAt = System.currentTimeMillis();
+                }
+            }
+            return toMap(cached, true);
+        }
+        Map<String, Object> result;
+        try {
+            Entry entry = retrieve(context, item);
+            entry.validator = validator == null ? "" : validator;
+            entry.checkedAt = System.currentTimeMillis();
+            synchronized (MetadataProbe.class) {
+                entries.put(hash, entry);
+                while (entries.size() > MAX_ENTRIES) {
+                    entries.remove(entries.keySet().iterator().next());
+                }
+            }
+            result = toMap(entry, false);
+        } catch (Exception e) {
+            Diagnostics.log(Log.DEBUG, TAG, "probe failed: %s", e);
+            result = new HashMap<>();
+            result.put("error", e.toString());
+        }
+        Diagnostics.timing("probe_ms", SystemClock.elapsedRealtime() - begin, 0);
+        return result;
+    }
+
+    /**
+     * 资源当前的版本标识，取不到返回 null
+     */
+    private static String validator(Context context, Item item, boolean network) {
+        if (item.assetPath != null) {
+            return "apk:" + new File(context.getApplicationInfo().sourceDir).lastModified();
+        }
+        if (!network) {
+            File local = new File(localPath(item.url));
+            return local.exists() ? local.lastModified() + ":" + local.length() : null;
+        }
+        HttpURLConnection connection = null;
+        try {
+            connection = NetworkPool.open(item.url);
+            connection.setRequestMethod("HEAD");
+            if (connection.getResponseCode() >= 400) return null;
+            String etag = connection.getHeaderField("ETag");
+            if (etag != null) return "etag:" + etag;
+            String modified = connection.getHeaderField("Last-Modified");
+            return "modified:" + (modified != null ? modified : connection.getContentLengthLong());
+        } catch (IOException e) {
+            return null;
+        } finally {
+            if (connection != null) connection.disconnect();
+        }
+    }
+
+    private static String localPath(String url) {
+        return url.startsWith("file://") ? url.substring("file://".length()) : url;
+    }
+
+    private static Entry retrieve(Context context, Item item) throws IOException {
+        MediaMetadataRetriever retriever = new MediaMetadataRetriever();
+        try {
+            if (item.assetPath != null) {
+                try (AssetFileDescriptor descriptor = context.getAssets().openFd(item.assetPath)) {
+                    retriever.setDataSource(descriptor.getFileDescriptor(), descriptor.getStartOffset(), descriptor.getLength());
+                }
+            } else if (item.url.startsWith("http")) {
+                retriever.setDataSource(item.url, new HashMap<>());
+            } else {
+                retriever.setDataSource(localPath(item.url));
+            }
+            Entry entry = new Entry();
+            entry.durationMs = parseLong(retriever.extractMetadata(MediaMetadataRetriever.METADATA_KEY_DURATION));
+            entry.bitrate = (int) parseLong(retriever.extractMetadata(MediaMetadataRetriever.METADATA_KEY_BITRATE));
+            entry.title = retriever.extractMetadata(MediaMetadataRetriever.METADATA_KEY_TITLE);
+            entry.artist = retriever.extractMetadata(MediaMetadataRetriever.METADATA_KEY_ARTIST);
+            entry.album = retriever.extractMetadata(MediaMetadataRetriever.METADATA_KEY_ALBUM);
+            byte[] picture = retriever.getEmbeddedPicture();
+            entry.hasArtwork = picture != null;
+            if (picture != null && !item.url.startsWith("http")) {
+                // 本地文件顺带写入封面缓存，播放时通知栏不必再解析一次
+                boolean isAsset = item.assetPath != null;
+                EmbeddedArtwork.remember(context, isAsset ? item.assetPath : item.url, isAsset, picture);
+            }
+            return entry;
+        } finally {
+            try {
+                retriever.release();
+            } catch (Exception ignored) {
+            }
+        }
+    }
+
+    private static long parseLong(String value) {
+        if (value == null) return 0;
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static Map<String, Object> toMap(Entry entry, boolean cached) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("duration", entry.durationMs);
+        map.put("bitrate", entry.bitrate);
+        map.put("title", entry.title);
+        map.put("artist", entry.artist);
+        map.put("album", entry.album);
+        map.put("hasArtwork", entry.hasArtwork);
+        map.put("cached", cached);
+        return map;
+    }
+
+    private static void load(Context context) {
+        if (file != null) return;
+        file = new File(context.getCacheDir(), FILE_NAME);
+        if (!file.exists()) return;
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) return;
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                long hash = in.readLong();
+                Entry entry = new Entry();
+                entry.validator = in.readUTF();
+                entry.checkedAt = in.readLong();
+                entry.durationMs = in.readLong();
+                entry.bitrate = in.readInt();
+                entry.title = emptyToNull(in.readUTF());
+                entry.artist = emptyToNull(in.readUTF());
+                entry.album = emptyToNull(in.readUTF());
+                entry.hasArtwork = in.readBoolean();
+                entries.put(hash, entry);
+            }
+        } catch (IOException e) {
+            Diagnostics.log(Log.WARN, TAG, "load failed: %s", e);
+        }
+    }
+
+    private static String emptyToNull(String value) {
+        return value.isEmpty() ? null : value;
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+
+    /**
+     * 加锁复制各条结果，写线程上整体覆盖写入
+     */
+    private static void save() {
+        final File target;
+        final Map<Long, Entry> copy = new LinkedHashMap<>();
+        synchronized (MetadataProbe.class) {
+            if (file == null) return;
+            target = file;
+            for (Map.Entry<Long, Entry> item : entries.entrySet()) {
+                copy.put(item.getKey(), item.getValue().copy());
+            }
+        }
+        writer.execute(() -> DiskFiles.writeAtomically(TAG, target, out -> {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(copy.size());
+            for (Map.Entry<Long, Entry> item : copy.entrySet()) {
+                Entry entry = item.getValue();
+                out.writeLong(item.getKey());
+                out.writeUTF(entry.validator);
+                out.writeLong(entry.checkedAt);
+                out.writeLong(entry.durationMs);
+                out.writeInt(entry.bitrate);
+                out.writeUTF(nullToEmpty(entry.title));
+                out.writeUTF(nullToEmpty(entry.artist));
+                out.writeUTF(nullToEmpty(entry.album));
+                out.writeBoolean(entry.hasArtwork);
+            }
+        }));
+    }
+}
@@ -0,0 +1,281 @@
+package cc.dync.audio_manager;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 镜像竞速
+ * 同一资源有多个镜像时，对所有地址同时请求开头一段 Range，最先收到首字节的胜出，其余连接立即断开。
+ * 每个主机的首字节耗时按 EWMA 记录并落盘：所有候选主机都有足够新的统计时直接选最快的，不再竞速。
+ * 读写文件都在写线程上：统计加载完成前一律竞速，记录后延迟 SAVE_DELAY_MS 合并成一次写入
+ * <p>
+ * 文件布局：int32 magic | int32 version | int32 主机数 | 每个主机：UTF origin | double 耗时(ms) | int32 样本数 | int32 失败数 | int64 更新时间
+ */
+final class MirrorRace {
+    private static final String TAG = "MirrorRace";
+    private static final String FILE_NAME = "audio_manager_mirrors.bin";
+    private static final int MAGIC = 0x414d4d52;
+    private static final int VERSION = 1;
+    private static final int PROBE_BYTES = 16 * 1024;
+    private static final long FAILURE_MS = 5_000;//失败按这个耗时计入
+    private static final double ALPHA = 0.3;
+    private static final int MIN_SAMPLES = 2;
+    private static final long STATS_TTL_MS = 30 * 60_000;//统计过期后重新竞速，边缘节点的好坏会变
+    private static final int MAX_HOSTS = 64;
+    private static final long SAVE_DELAY_MS = 2_000;//一次竞速的各个结果合并成一次写入
+
+    interface Callback {
+        void onWinner(String url);
+    }
+
+    interface StatsCallback {
+        void onStats(Map<String, Object> stats);
+    }
+
+    private static final class Host {
+        double latencyMs;
+        int samples;
+        int failures;
+        long updatedAt;//wall clock，跨进程保留
+    }
+
+    private static final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "audio_manager_mirror");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor();
+    // origin -> 统计，按访问顺序，超出上限时淘汰最久未用的
+    private static final Map<String, Host> hosts = new LinkedHashMap<>(16, 0.75f, true);
+    private static File file;
+    private static boolean loaded = false;
+    private static boolean saveScheduled = false;
+
+    private MirrorRace() {
+    }
+
+    /**
+     * 所有候选主机都有足够新的统计时返回最快的地址，否则（包括统计还没加载完）返回 null，需要竞速
+     */
+    static synchronized String preferred(Context context, List<String> urls) {
+        load(context);
+        if (!loaded) return null;
+        long now = System.currentTimeMillis();
+        String best = null;
+        double bestLatency = Double.MAX_VALUE;
+        for (String url : urls) {
+            String origin = NetworkPool.originOf(url);
+            Host host = origin == null ? null : hosts.get(origin);
+            if (host == null || host.samples < MIN_SAMPLES || now - host.updatedAt > STATS_TTL_MS) return null;
+            if (host.latencyMs < bestLatency) {
+                bestLatency = host.latencyMs;
+                best = url;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * 并行探测 urls，首个收到首字节的地址回调 onWinner（在竞速线程上）；全部失败时回调第一个地址，
+     * 由播放器给出真正的错误
+     */
+    static void race(Context context, List<String> urls, Callback callback) {
+        synchronized (MirrorRace.class) {
+            load(context);
+        }
+        // 竞速结果记在内存里，加载完成时与文件里的旧统计合并
+        final long begin = SystemClock.elapsedRealtime();
+        final AtomicBoolean decided = new AtomicBoolean(false);
+        final AtomicInteger remaining = new AtomicInteger(urls.size());
+        final List<HttpURLConnection> connections = new ArrayList<>();
+        for (String url : urls) {
+            executor.execute(() -> {
+                HttpURLConnection connection = null;
+                try {
+                    connection = NetworkPool.open(url);
+                    synchronized (connections) {
+                        if (decided.get()) return;
+                        connections.add(connection);
+                    }
+                    connection.setRequestProperty("Range", "bytes=0-" + (PROBE_BYTES - 1));
+                    int code = connection.getResponseCode();
+                    if (code != HttpURLConnection.HTTP_OK && code != HttpURLConnection.HTTP_PARTIAL) {
+                        throw new IOException("response " + code);
+                    }
+                    try (InputStream in = connection.getInputStream()) {
+                        if (in.read() == -1) throw new IOException("empty body");
+                    }
+                    long latency = SystemClock.elapsedRealtime() - begin;
+                    record(url, latency, false);
+                    if (decided.compareAndSet(false, true)) {
+                        Diagnostics.log(Log.DEBUG, TAG, "winner %s", url);
+                        Diagnostics.timing("mirror_ms", latency, urls.size());
+                        cancelOthers(connections, connection);
+                        callback.onWinner(url);
+                    }
+                } catch (IOException e) {
+                    if (decided.get()) {
+                        // 被胜者取消：至少比胜者慢，把放弃时的耗时作为下限记入
+                        record(url, SystemClock.elapsedRealtime() - begin, false);
+                    } else {
+                        Diagnostics.log(Log.DEBUG, TAG, "mirror failed: %s", e);
+                        record(url, FAILURE_MS, true);
+                    }
+                } finally {
+                    if (connection != null) connection.disconnect();
+                    if (remaining.decrementAndGet() == 0 && decided.compareAndSet(false, true)) {
+                        callback.onWinner(urls.get(0));
+                    }
+                }
+            });
+        }
+    }
+
+    private static void cancelOthers(List<HttpURLConnection> connections, HttpURLConnection winner) {
+        synchronized (connections) {
+            for (HttpURLConnection other : connections) {
+                if (other != winner) other.disconnect();
+            }
+        }
+    }
+
+    private static synchronized void record(String url, long latencyMs, boolean failed) {
+        String origin = NetworkPool.originOf(url);
+        if (origin == null) return;
+        Host host = hosts.get(origin);
+        if (host == null) {
+            host = new Host();
+            host.latencyMs = latencyMs;
+            hosts.put(origin, host);
+        } else {
+            host.latencyMs += ALPHA * (latencyMs - host.latencyMs);
+        }
+        host.samples++;
+        if (failed) host.failures++;
+        host.updatedAt = System.currentTimeMillis();
+        while (hosts.size() > MAX_HOSTS) {
+            hosts.remove(hosts.keySet().iterator().next());
+        }
+        if (!saveScheduled && file != null) {
+            saveScheduled = true;
+            writer.schedule(MirrorRace::save, SAVE_DELAY_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 在写线程上等统计加载完成后回调（仍在写线程上）
+     */
+    static void stats(Context context, StatsCallback callback) {
+        synchronized (MirrorRace.class) {
+            load(context);
+        }
+        writer.execute(() -> callback.onStats(stats()));
+    }
+
+    private static synchronized Map<String, Object> stats() {
+        Map<String, Object> stats = new HashMap<>();
+        for (Map.Entry<String, Host> entry : hosts.entrySet()) {
+            Host host = entry.getValue();
+            Map<String, Object> item = new HashMap<>();
+            item.put("latencyMs", Math.round(host.latencyMs));
+            item.put("samples", host.samples);
+            item.put("failures", host.failures);
+            stats.put(entry.getKey(), item);
+        }
+        return stats;
+    }
+
+    /**
+     * 首次调用时把读文件交给写线程，之后的保存排在它后面
+     */
+    private static void load(Context context) {
+        if (file != null) return;
+        final File source = new File(context.getFilesDir(), FILE_NAME);
+        file = source;
+        writer.execute(() -> {
+            Map<String, Host> stored = read(source);
+            synchronized (MirrorRace.class) {
+                // 加载期间已有的新记录优先
+                for (Map.Entry<String, Host> entry : stored.entrySet()) {
+                    if (!hosts.containsKey(entry.getKey())) hosts.put(entry.getKey(), entry.getValue());
+                }
+                while (hosts.size() > MAX_HOSTS) {
+                    hosts.remove(hosts.keySet().iterator().next());
+                }
+                loaded = true;
+            }
+        });
+    }
+
+    private static Map<String, Host> read(File source) {
+        Map<String, Host> stored = new LinkedHashMap<>();
+        if (!source.exists()) return stored;
+        try (DataInputStream in = new DataInputStream(new FileInputStream(source))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) return stored;
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String origin = in.readUTF();
+                Host host = new Host();
+                host.latencyMs = in.readDouble();
+                host.samples = in.readInt();
+                host.failures = in.readInt();
+                host.updatedAt = in.readLong();
+                stored.put(origin, host);
+            }
+        } catch (IOException e) {
+            Diagnostics.log(Log.WARN, TAG, "load failed: %s", e);
+        }
+        return stored;
+    }
+
+    /**
+     * 在写线程上执行，加锁拍快照后整体覆盖写入
+     */
+    private static void save() {
+        final File target;
+        final Map<String, Host> copy = new LinkedHashMap<>();
+        synchronized (MirrorRace.class) {
+            saveScheduled = false;
+            target = file;
+            for (Map.Entry<String, Host> entry : hosts.entrySet()) {
+                Host host = new Host();
+                host.latencyMs = entry.getValue().latencyMs;
+                host.samples = entry.getValue().samples;
+                host.failures = entry.getValue().failures;
+                host.updatedAt = entry.getValue().updatedAt;
+                copy.put(entry.getKey(), host);
+            }
+        }
+        DiskFiles.writeAtomically(TAG, target, out -> {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(copy.size());
+            for (Map.Entry<String, Host> entry : copy.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeDouble(entry.getValue().latencyMs);
+                out.writeInt(entry.getValue().samples);
+                out.writeInt(entry.getValue().failures);
+                out.writeLong(entry.getValue().updatedAt);
+            }
+        });
+    }
+}
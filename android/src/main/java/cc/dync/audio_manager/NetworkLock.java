@@ -0,0 +1,82 @@
+package cc.dync.audio_manager;
+
+import android.content.Context;
+import android.net.wifi.WifiManager;
+import android.os.Build;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 进程内共享的 wifi 锁
+ * 按持有者引用计数：同一持有者重复 acquire 只算一次，最后一个持有者 release 时才真正释放。
+ * 只应在网络音源缓冲或播放、且数据尚未全部缓存时持有；同时统计持有时长，用于评估耗电
+ */
+final class NetworkLock {
+    private static final String TAG = "NetworkLock";
+
+    private static NetworkLock instance;
+
+    private final WifiManager.WifiLock wifiLock;
+    private final Set<String> holders = new HashSet<>();
+    private long heldSince = 0;//本次持有开始时间，0 表示未持有
+    private long totalHeldMs = 0;
+    private long lastHeldMs = 0;
+    private int acquireCount = 0;
+
+    // API 29 起旧的 WifiLock 模式全部废弃，且仅 WIFI_MODE_FULL_LOW_LATENCY 可作替代；
+    // Android 10 以下没有非废弃模式，保留兜底
+    @SuppressWarnings("deprecation")
+    private NetworkLock(Context context) {
+        WifiManager wifiManager = (WifiManager) context.getApplicationContext().getSystemService(Context.WIFI_SERVICE);
+        if (wifiManager == null) {
+            wifiLock = null;
+        } else if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            wifiLock = wifiManager.createWifiLock(WifiManager.WIFI_MODE_FULL_LOW_LATENCY, "audio_manager");
+        } else {
+            wifiLock = wifiManager.createWifiLock(WifiManager.WIFI_MODE_FULL_HIGH_PERF, "audio_manager");
+        }
+        // 引用计数由持有者集合负责，系统锁只做开关
+        if (wifiLock != null) wifiLock.setReferenceCounted(false);
+    }
+
+    static synchronized NetworkLock get(Context context) {
+        if (instance == null) instance = new NetworkLock(context);
+        return instance;
+    }
+
+    synchronized void acquire(String holder) {
+        if (!holders.add(holder) || holders.size() > 1) return;
+        if (wifiLock != null) wifiLock.acquire();
+        heldSince = SystemClock.elapsedRealtime();
+        acquireCount++;
+    }
+
+    synchronized void release(String holder) {
+        if (!holders.remove(holder) || !holders.isEmpty()) return;
+        if (wifiLock != null && wifiLock.isHeld()) wifiLock.release();
+        lastHeldMs = SystemClock.elapsedRealtime() - heldSince;
+        totalHeldMs += lastHeldMs;
+        heldSince = 0;
+        Diagnostics.timing("wifi_lock_ms", lastHeldMs, totalHeldMs);
+        Diagnostics.log(Log.DEBUG, TAG, "wifi lock held %dms, total %dms", lastHeldMs, totalHeldMs);
+    }
+
+    /**
+     * 持有统计：是否持有、持有者数量、获取次数、上次与累计持有时长（含正在持有的部分）
+     */
+    synchronized Map<String, Object> stats() {
+        long current = heldSince > 0 ? SystemClock.elapsedRealtime() - heldSince : 0;
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("held", heldSince > 0);
+        stats.put("holders", holders.size());
+        stats.put("acquireCount", acquireCount);
+        stats.put("lastHeldMs", lastHeldMs);
+        stats.put("totalHeldMs", totalHeldMs + current);
+        return stats;
+    }
+}
@@ -0,0 +1,101 @@
+package cc.dync.audio_manager;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.URL;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 网络连接复用与预热
+ * 封面请求统一经这里打开连接，读完后只关闭流、不 disconnect，连接回到 HttpURLConnection 的 keep-alive 池复用。
+ * preconnect 提前解析并握手即将播放的音频与封面所在主机：
+ * DNS 结果进入系统缓存，MediaPlayer 的原生网络栈同样受益；TCP/TLS 连接留在 keep-alive 池供封面请求复用
+ */
+final class NetworkPool {
+    private static final String TAG = "NetworkPool";
+    private static final int CONNECT_TIMEOUT_MS = 10_000;
+    private static final int READ_TIMEOUT_MS = 15_000;
+    private static final long WARM_TTL_MS = 60_000;//keep-alive 空闲连接大约保留的时长，期间不重复预热
+
+    private static final ExecutorService executor = Executors.newFixedThreadPool(2);
+    private static final Map<String, Long> warmedAt = new ConcurrentHashMap<>();//scheme://host:port -> 上次预热时间
+
+    private NetworkPool() {
+    }
+
+    static HttpURLConnection open(String url) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setConnectTimeout(CONNECT_TIMEOUT_MS);
+        connection.setReadTimeout(READ_TIMEOUT_MS);
+        return connection;
+    }
+
+    /**
+     * 读尽并关闭响应流，让连接回到复用池（disconnect 会直接关闭底层 socket）
+     */
+    static void release(InputStream stream) {
+        if (stream == null) return;
+        try {
+            byte[] buffer = new byte[4096];
+            //noinspection StatementWithEmptyBody
+            while (stream.read(buffer) != -1) ;
+            stream.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    /**
+     * 后台预热这些地址所在的主机，非 http(s) 地址与近期已预热的主机会被跳过
+     */
+    static void preconnect(Collection<String> urls) {
+        if (urls == null) return;
+        for (String url : urls) {
+            final String origin = originOf(url);
+            if (origin == null) continue;
+            Long last = warmedAt.get(origin);
+            long now = SystemClock.elapsedRealtime();
+            if (last != null && now - last < WARM_TTL_MS) continue;
+            warmedAt.put(origin, now);
+            executor.execute(() -> warm(url, origin));
+        }
+    }
+
+    private static void warm(String url, String origin) {
+        long begin = SystemClock.elapsedRealtime();
+        try {
+            URL target = new URL(url);
+            InetAddress.getAllByName(target.getHost());
+            // HEAD 请求只为完成 TCP/TLS 握手，响应头读完连接即可复用
+            HttpURLConnection connection = open(url);
+            connection.setRequestMethod("HEAD");
+            int code = connection.getResponseCode();
+            // 成功与失败的响应体分别在两个流上，都要读尽关闭连接才会回到复用池
+            release(code < 400 ? connection.getInputStream() : connection.getErrorStream());
+            Diagnostics.timing("preconnect_ms", SystemClock.elapsedRealtime() - begin, 0);
+        } catch (IOException e) {
+            warmedAt.remove(origin);
+            Diagnostics.log(Log.DEBUG, TAG, "preconnect failed: %s", e);
+        }
+    }
+
+    static String originOf(String url) {
+        if (url == null) return null;
+        try {
+            URL parsed = new URL(url);
+            String protocol = parsed.getProtocol();
+            if (!"http".equals(protocol) && !"https".equals(protocol)) return null;
+            return protocol + "://" + parsed.getHost() + ":" + parsed.getPort();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,452 @@
+package cc.dync.audio_manager;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.net.HttpURLConnection;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 离线下载
+ * 文件按 SEGMENT_SIZE 分段，每个文件由 PARALLEL_PER_FILE 个连接并行领取分段、各自发 Range 请求写入对应偏移；
+ * 同时下载的文件数与全局连接数都有上限。已完成的分段记录在 .meta 的位图里，中断后再次下载只补缺失分段。
+ * 全部完成后校验长度（以及调用方提供的 SHA-256），通过后 rename 为正式文件，start() 播放时优先使用。
+ * 分段请求带上探测时记下的校验值（强 ETag 或 Last-Modified）作为 If-Range，服务端文件已更换时旧分段作废、从头重新下载
+ * <p>
+ * .meta 布局：int32 magic | int64 总长度 | int32 分段大小 | int32 分段数 | UTF 校验值 | 位图（每段 1 bit）
+ */
+final class OfflineDownloads {
+    private static final String TAG = "OfflineDownloads";
+    private static final String DIR_NAME = "audio_manager_offline";
+    private static final int MAGIC = 0x414d4f45;
+    private static final int SEGMENT_SIZE = 1 << 20;
+    private static final int PARALLEL_PER_FILE = 3;
+    private static final int MAX_FILES = 2;
+    private static final int MAX_CONNECTIONS = MAX_FILES * PARALLEL_PER_FILE;
+    private static final long PROGRESS_INTERVAL_MS = 500;
+
+    interface Listener {
+        void onProgress(String url, long received, long total);
+
+        void onComplete(String url, String path);
+
+        void onFailed(String url, String message);
+    }
+
+    private static final ExecutorService files = Executors.newFixedThreadPool(MAX_FILES);
+    private static final ExecutorService connections = Executors.newFixedThreadPool(MAX_CONNECTIONS);
+    private static final Map<String, Task> tasks = new ConcurrentHashMap<>();
+    private static volatile Listener listener;
+
+    private OfflineDownloads() {
+    }
+
+    static void setListener(Listener listener) {
+        OfflineDownloads.listener = listener;
+    }
+
+    private static File dir(Context context) {
+        File dir = new File(context.getFilesDir(), DIR_NAME);
+        //noinspection ResultOfMethodCallIgnored
+        dir.mkdirs();
+        return dir;
+    }
+
+    private static File file(Context context, String url, String suffix) {
+        return new File(dir(context), Long.toHexString(ResumeStore.hash(url)) + suffix);
+    }
+
+    /**
+     * 已完整下载并校验通过的本地文件，没有返回 null
+     */
+    static File completed(Context context, String url) {
+        if (url == null) return null;
+        File media = file(context, url, ".media");
+        return media.exists() ? media : null;
+    }
+
+    /**
+     * 开始或继续下载；已完成时直接回调 onComplete，正在下载时忽略
+     *
+     * @param sha256 期望的 SHA-256（十六进制），为空时只校验长度
+     */
+    static void start(Context context, String url, String sha256) {
+        File done = completed(context, url);
+        if (done != null) {
+            Listener current = listener;
+            if (current != null) current.onComplete(url, done.getPath());
+            return;
+        }
+        Task task = new Task(context.getApplicationContext(), url, sha256);
+        if (tasks.putIfAbsent(url, task) != null) return;
+        files.execute(task::run);
+    }
+
+    /**
+     * 暂停下载，已完成的分段保留，之后可继续
+     */
+    static void cancel(String url) {
+        Task task = tasks.get(url);
+        if (task != null) task.cancelled = true;
+    }
+
+    /**
+     * 删除本地文件与下载进度；正在下载时与任务的完成 rename 互斥，任务结束时会再清理一次它新建的文件
+     */
+    static void remove(Context context, String url) {
+        Task task = tasks.get(url);
+        if (task != null) {
+            synchronized (task) {
+                task.cancelled = true;
+                task.removed = true;
+            }
+        }
+        deleteFiles(context, url);
+    }
+
+    private static void deleteFiles(Context context, String url) {
+        for (String suffix : new String[]{".media", ".part", ".meta"}) {
+            //noinspection ResultOfMethodCallIgnored
+            file(context, url, suffix).delete();
+        }
+    }
+
+    static Map<String, Object> state(Context context, String url) {
+        Map<String, Object> state = new HashMap<>();
+        File done = completed(context, url);
+        Task task = tasks.get(url);
+        if (done != null) {
+            state.put("state", "completed");
+            state.put("received", done.length());
+            state.put("total", done.length());
+            state.put("path", done.getPath());
+        } else if (task != null) {
+            state.put("state", "running");
+            state.put("received", task.received.get());
+            state.put("total", task.total);
+        } else {
+            File meta = file(context, url, ".meta");
+            state.put("state", meta.exists() ? "paused" : "none");
+        }
+        return state;
+    }
+
+    /**
+     * 服务端文件已不是记录进度时的那份
+     */
+    private static final class ResourceChangedException extends IOException {
+        ResourceChangedException(String message) {
+            super(message);
+        }
+    }
+
+    private static final class Task {
+        private final Context context;
+        private final String url;
+        private final String sha256;
+        private final AtomicLong received = new AtomicLong();
+        private volatile boolean cancelled = false;
+        private volatile boolean removed = false;
+        private volatile long total = -1;
+        private String validator = "";
+        private volatile IOException failure;
+        private long lastProgressAt = 0;
+
+        private RandomAccessFile meta;
+        private long bitmapOffset;
+        private byte[] bitmap;
+        private boolean[] claimed;
+        private int segmentSize;
+        private int count;
+
+        Task(Context context, String url, String sha256) {
+            this.context = context;
+            this.url = url;
+            this.sha256 = sha256;
+        }
+
+        void run() {
+            File part = file(context, url, ".part");
+            File metaFile = file(context, url, ".meta");
+            try {
+                try {
+                    fetch(part, metaFile);
+                } catch (ResourceChangedException e) {
+                    // 已下载的分段属于旧文件，全部作废后从头下载一次
+                    Diagnostics.log(Log.DEBUG, TAG, "restart %s", url + ": " + e.getMessage());
+                    //noinspection ResultOfMethodCallIgnored
+                    metaFile.delete();
+                    //noinspection ResultOfMethodCallIgnored
+                    part.delete();
+                    failure = null;
+                    fetch(part, metaFile);
+                }
+                if (cancelled) {
+                    Diagnostics.log(Log.DEBUG, TAG, "paused %s", url);
+                    return;
+                }
+                verify(part, metaFile);
+                File media = file(context, url, ".media");
+                synchronized (this) {
+                    // remove() 可能在分段完成之后才到达，此时不能再把文件放回去
+                    if (cancelled) return;
+                    if (!part.renameTo(media)) throw new IOException("rename failed");
+                }
+                //noinspection ResultOfMethodCallIgnored
+                metaFile.delete();
+                Listener current = listener;
+                if (current != null) current.onComplete(url, media.getPath());
+            } catch (IOException | InterruptedException e) {
+                Diagnostics.error("download " + url + ": " + e);
+                Listener current = listener;
+                if (current != null && !removed) current.onFailed(url, e.toString());
+            } finally {
+                if (removed) deleteFiles(context, url);
+                tasks.remove(url);
+            }
+        }
+
+        /**
+         * 打开进度并由若干连接领取分段下载，直到全部完成、被暂停或出错
+         */
+        private void fetch(File part, File metaFile) throws IOException, InterruptedException {
+            try (RandomAccessFile data = new RandomAccessFile(part, "rw")) {
+                openMeta(metaFile, data);
+                FileChannel channel = data.getChannel();
+                int workers = Math.min(PARALLEL_PER_FILE, count);
+                CountDownLatch latch = new CountDownLatch(workers);
+                for (int i = 0; i < workers; i++) {
+                    connections.execute(() -> {
+                        try {
+                            work(channel);
+                        } catch (IOException e) {
+                            failure = e;
+                        } finally {
+                            latch.countDown();
+                        }
+                    });
+                }
+                latch.await();
+                if (failure != null) throw failure;
+            } finally {
+                if (meta != null) {
+                    try {
+                        meta.close();
+                    } catch (IOException ignored) {
+                    }
+                    meta = null;
+                }
+            }
+        }
+
+        /**
+         * 读取已有进度；没有或与服务端长度不符时探测长度与 Range 支持并重建
+         */
+        private void openMeta(File metaFile, RandomAccessFile data) throws IOException {
+            meta = new RandomAccessFile(metaFile, "rw");
+            if (readHeader(data)) {
+                meta.readFully(bitmap);
+                claimed = new boolean[count];
+                long done = 0;
+                for (int i = 0; i < count; i++) {
+                    if (isDone(i)) {
+                        claimed[i] = true;
+                        done += segmentEnd(i) - (long) i * segmentSize;
+                    }
+                }
+                received.set(done);
+                return;
+            }
+            probe();
+            bitmap = new byte[(count + 7) / 8];
+            claimed = new boolean[count];
+            data.setLength(total);
+            meta.setLength(0);
+            meta.writeInt(MAGIC);
+            meta.writeLong(total);
+            meta.writeInt(segmentSize);
+            meta.writeInt(count);
+            meta.writeUTF(validator);
+            bitmapOffset = meta.getFilePointer();
+            meta.write(bitmap);
+            received.set(0);
+        }
+
+        /**
+         * 读取 .meta 头部，与数据文件一致时返回 true，位图留在 bitmapOffset 处待读
+         */
+        private boolean readHeader(RandomAccessFile data) {
+            try {
+                if (meta.length() <= 4 || meta.readInt() != MAGIC) return false;
+                total = meta.readLong();
+                segmentSize = meta.readInt();
+                count = meta.readInt();
+                validator = meta.readUTF();
+                bitmapOffset = meta.getFilePointer();
+                bitmap = new byte[(count + 7) / 8];
+                return count > 0 && meta.length() == bitmapOffset + bitmap.length && data.length() == total;
+            } catch (IOException e) {
+                return false;
+            }
+        }
+
+        private void probe() throws IOException {
+            HttpURLConnection connection = NetworkPool.open(url);
+            try {
+                connection.setRequestProperty("Range", "bytes=0-0");
+                int code = connection.getResponseCode();
+                total = MediaCache.totalLength(connection, code);
+                if (total <= 0) throw new IOException("unknown length, response " + code);
+                validator = MediaCache.validatorOf(connection);
+                // 不支持 Range 时整个文件作为一段，单连接下载，中断后从头开始
+                segmentSize = code == HttpURLConnection.HTTP_PARTIAL
+                        ? SEGMENT_SIZE : (int) Math.min(Integer.MAX_VALUE, total);
+                count = (int) ((total + segmentSize - 1) / segmentSize);
+            } finally {
+                connection.disconnect();
+            }
+        }
+
+        /**
+         * 暂停或任一连接出错后其余连接停止领取
+         */
+        private boolean halted() {
+            return cancelled || failure != null;
+        }
+
+        private void work(FileChannel channel) throws IOException {
+            int segment;
+            while (!halted() && (segment = claim()) >= 0) {
+                download(channel, segment);
+                if (!halted()) markDone(segment);
+            }
+        }
+
+        private void download(FileChannel channel, int segment) throws IOException {
+            long start = (long) segment * segmentSize;
+            long end = segmentEnd(segment);
+            HttpURLConnection connection = NetworkPool.open(url);
+            try {
+                if (count > 1) {
+                    connection.setRequestProperty("Range", "bytes=" + start + "-" + (end - 1));
+                    if (!validator.isEmpty()) connection.setRequestProperty("If-Range", validator);
+                }
+                int code = connection.getResponseCode();
+                checkSameResource(connection, code);
+                if (code != HttpURLConnection.HTTP_PARTIAL && !(count == 1 && code == HttpURLConnection.HTTP_OK)) {
+                    throw new IOException("unexpected response " + code);
+                }
+                try (InputStream in = connection.getInputStream()) {
+                    byte[] buffer = new byte[64 * 1024];
+                    long position = start;
+                    while (position < end) {
+                        if (halted()) return;
+                        int read = in.read(buffer, 0, (int) Math.min(buffer.length, end - position));
+                        if (read == -1) throw new IOException("short read at " + position);
+                        ByteBuffer wrapped = ByteBuffer.wrap(buffer, 0, read);
+                        while (wrapped.hasRemaining()) position += channel.write(wrapped, position);
+                        progress(received.addAndGet(read));
+                    }
+                }
+            } finally {
+                connection.disconnect();
+            }
+        }
+
+        /**
+         * 探测时支持 Range 的服务端对带 If-Range 的请求返回 200，说明校验值已不匹配；
+         * 206 的总长度或 200 的长度与记录不符同样说明文件已更换
+         */
+        private void checkSameResource(HttpURLConnection connection, int code) throws IOException {
+            if (code == HttpURLConnection.HTTP_PARTIAL) {
+                long current = MediaCache.totalLength(connection, code);
+                if (current != total) throw new ResourceChangedException("total " + current + " != " + total);
+            } else if (code == HttpURLConnection.HTTP_OK) {
+                if (count > 1) throw new ResourceChangedException("If-Range mismatch");
+                long current = connection.getContentLengthLong();
+                if (current >= 0 && current != total) throw new ResourceChangedException("length " + current + " != " + total);
+            }
+        }
+
+        private synchronized int claim() {
+            for (int i = 0; i < count; i++) {
+                if (!claimed[i]) {
+                    claimed[i] = true;
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private synchronized void markDone(int segment) throws IOException {
+            bitmap[segment / 8] |= (byte) (1 << (segment % 8));
+            meta.seek(bitmapOffset + segment / 8);
+            meta.writeByte(bitmap[segment / 8]);
+        }
+
+        private boolean isDone(int segment) {
+            return (bitmap[segment / 8] & (1 << (segment % 8))) != 0;
+        }
+
+        private long segmentEnd(int segment) {
+            return Math.min(total, (long) (segment + 1) * segmentSize);
+        }
+
+        /**
+         * 进度事件节流：每 PROGRESS_INTERVAL_MS 最多一次，最后一个字节必定上报
+         */
+        private void progress(long value) {
+            Listener current = listener;
+            if (current == null) return;
+            long now = SystemClock.elapsedRealtime();
+            synchronized (this) {
+                if (value < total && now - lastProgressAt < PROGRESS_INTERVAL_MS) return;
+                lastProgressAt = now;
+            }
+            current.onProgress(url, value, total);
+        }
+
+        private void verify(File part, File metaFile) throws IOException {
+            if (part.length() != total) throw new IOException("size mismatch " + part.length() + "/" + total);
+            if (sha256 == null || sha256.isEmpty()) return;
+            MessageDigest digest;
+            try {
+                digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IOException(e);
+            }
+            try (InputStream in = new FileInputStream(part)) {
+                byte[] buffer = new byte[64 * 1024];
+                int read;
+                while ((read = in.read(buffer)) != -1) digest.update(buffer, 0, read);
+            }
+            StringBuilder hex = new StringBuilder();
+            for (byte b : digest.digest()) hex.append(String.format(Locale.US, "%02x", b));
+            if (!hex.toString().equalsIgnoreCase(sha256)) {
+                // 内容损坏，清掉进度以便重新下载
+                //noinspection ResultOfMethodCallIgnored
+                part.delete();
+                //noinspection ResultOfMethodCallIgnored
+                metaFile.delete();
+                throw new IOException("checksum mismatch");
+            }
+        }
+    }
+}
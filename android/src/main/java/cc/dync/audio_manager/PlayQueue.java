@@ -0,0 +1,124 @@
+package cc.dync.audio_manager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 原生播放队列
+ * 由 Dart 侧整体同步（列表、当前下标、播放模式、随机顺序），
+ * 通知栏/耳机的上一首、下一首直接在原生侧切换，无需经过 Dart 往返
+ */
+final class PlayQueue {
+    // 与 Dart PlayMode 的下标保持一致
+    static final int MODE_SEQUENCE = 0;
+    static final int MODE_SHUFFLE = 1;
+    static final int MODE_SINGLE = 2;
+
+    private final List<MediaPlayerHelper.MediaInfo> items = new ArrayList<>();
+    private int[] order = new int[0];//播放顺序，顺序模式下为 0..n-1
+    private int cursor = 0;//当前下标在 order 中的位置
+    private int mode = MODE_SEQUENCE;
+    private boolean autoAdvance = false;//播放结束后是否自动切到下一首
+
+    /**
+     * 整体替换队列
+     *
+     * @param items   播放列表
+     * @param index   当前下标
+     * @param mode    播放模式
+     * @param shuffle 随机模式下 Dart 侧的随机顺序，为空或不合法时原生自行生成
+     */
+    void set(List<MediaPlayerHelper.MediaInfo> items, int index, int mode, List<Integer> shuffle, boolean autoAdvance) {
+        this.items.clear();
+        this.items.addAll(items);
+        this.mode = mode;
+        this.autoAdvance = autoAdvance;
+        int size = items.size();
+        order = new int[size];
+        if (mode == MODE_SHUFFLE && isPermutation(shuffle, size)) {
+            for (int i = 0; i < size; i++) order[i] = shuffle.get(i);
+        } else if (mode == MODE_SHUFFLE) {
+            List<Integer> generated = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) generated.add(i);
+            Collections.shuffle(generated);
+            for (int i = 0; i < size; i++) order[i] = generated.get(i);
+        } else {
+            for (int i = 0; i < size; i++) order[i] = i;
+        }
+        moveTo(index);
+    }
+
+    void clear() {
+        items.clear();
+        order = new int[0];
+        cursor = 0;
+        autoAdvance = false;
+    }
+
+    boolean isEmpty() {
+        return items.isEmpty();
+    }
+
+    boolean isAutoAdvance() {
+        return autoAdvance && !items.isEmpty();
+    }
+
+    int mode() {
+        return mode;
+    }
+
+    /**
+     * 当前播放的列表下标，队列为空时为 -1
+     */
+    int index() {
+        return order.length == 0 ? -1 : order[cursor];
+    }
+
+    MediaPlayerHelper.MediaInfo get(int index) {
+        if (index < 0 || index >= items.size()) return null;
+        return items.get(index);
+    }
+
+    /**
+     * 定位到指定列表下标（Dart 侧主动 start 某一首时同步游标）
+     */
+    void moveTo(int index) {
+        for (int i = 0; i < order.length; i++) {
+            if (order[i] == index) {
+                cursor = i;
+                return;
+            }
+        }
+        cursor = 0;
+    }
+
+    /**
+     * 按当前模式预览前进/后退 step 后的列表下标，不移动游标；单曲模式保持当前
+     */
+    int peek(int step) {
+        if (order.length == 0) return -1;
+        if (mode == MODE_SINGLE) return order[cursor];
+        int next = ((cursor + step) % order.length + order.length) % order.length;
+        return order[next];
+    }
+
+    /**
+     * 前进/后退 step 并返回新的列表下标
+     */
+    int move(int step) {
+        int index = peek(step);
+        if (index >= 0) moveTo(index);
+        return index;
+    }
+
+    private static boolean isPermutation(List<Integer> values, int size) {
+        if (values == null || values.size() != size) return false;
+        boolean[] seen = new boolean[size];
+        for (Integer value : values) {
+            if (value == null || value < 0 || value >= size || seen[value]) return false;
+            seen[value] = true;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,83 @@
+package cc.dync.audio_manager;
+
+import android.os.SystemClock;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 播放器状态快照
+ * 不可变对象，由 MediaPlayerHelper 在主线程的唯一写入口 transition 中整体替换（volatile 发布），
+ * 其他线程（封面线程、Binder 回调、通道调用）只读快照，无需加锁，也不会读到半更新的字段组合
+ */
+final class PlayerState {
+    // 状态码与共享时钟、Dart PositionState 保持一致
+    static final int IDLE = 0;
+    static final int PREPARING = 1;
+    static final int PREPARED = 2;
+    static final int PLAYING = 3;
+    static final int PAUSED = 4;
+    static final int BUFFERING = 5;
+    static final int ENDED = 6;
+    static final int ERROR = 7;
+
+    static final PlayerState INITIAL = new PlayerState(IDLE, false, "", null, null, null, 0, 0, 1f, -1);
+
+    final int state;
+    final boolean playing;//MediaPlayer 是否在走（缓冲中也可能为 true）
+    final String url;
+    final String title;
+    final String desc;
+    final String cover;
+    final long positionMs;//锚点进度
+    final long durationMs;
+    final float speed;
+    final int queueIndex;
+    final long anchoredAt;//锚点时间 elapsedRealtime
+
+    PlayerState(int state, boolean playing, String url, String title, String desc, String cover,
+                long positionMs, long durationMs, float speed, int queueIndex) {
+        this.state = state;
+        this.playing = playing;
+        this.url = url;
+        this.title = title;
+        this.desc = desc;
+        this.cover = cover;
+        this.positionMs = positionMs;
+        this.durationMs = durationMs;
+        this.speed = speed;
+        this.queueIndex = queueIndex;
+        this.anchoredAt = SystemClock.elapsedRealtime();
+    }
+
+    /**
+     * 播放器已准备好，可以播放/暂停/拖动
+     */
+    static boolean isPrepared(int state) {
+        return state == PREPARED || state == PLAYING || state == PAUSED
+                || state == BUFFERING || state == ENDED;
+    }
+
+    /**
+     * 当前进度：播放中按 锚点 + 经过时间 × 速率 外推，不访问 MediaPlayer
+     */
+    long position() {
+        if (state != PLAYING) return positionMs;
+        long position = positionMs + (long) ((SystemClock.elapsedRealtime() - anchoredAt) * speed);
+        return durationMs > 0 ? Math.min(position, durationMs) : position;
+    }
+
+    Map<String, Object> toMap() {
+        Map<String, Object> map = new HashMap<>();
+        map.put("state", state);
+        map.put("isPlaying", playing);
+        map.put("position", (int) position());
+        map.put("duration", (int) durationMs);
+        map.put("title", title);
+        map.put("desc", desc);
+        map.put("cover", cover);
+        map.put("url", url);
+        map.put("queueIndex", queueIndex);
+        return map;
+    }
+}
@@ -0,0 +1,79 @@
+package cc.dync.audio_manager;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * 共享内存播放时钟
+ * 以内存映射文件（direct ByteBuffer）发布锚点进度、时间戳、速率、时长与状态，
+ * Dart 侧通过 FFI mmap 同一文件后可逐帧读取，无需任何方法通道调用。
+ * 写入采用 seqlock：版本号为奇数表示正在写入，读方前后两次版本号一致且为偶数才算有效快照
+ * <p>
+ * 布局（本机字节序）：
+ * 0 int32 版本号 | 4 int32 状态 | 8 int64 锚点进度(ms) | 16 int64 锚点时间(CLOCK_MONOTONIC ns)
+ * | 24 int64 时长(ms) | 32 float32 速率。状态码即 PlayerState 的状态码
+ */
+final class PositionClock {
+    static final int SIZE = 64;
+
+    private static final int OFFSET_VERSION = 0;
+    private static final int OFFSET_STATE = 4;
+    private static final int OFFSET_POSITION = 8;
+    private static final int OFFSET_TIMESTAMP = 16;
+    private static final int OFFSET_DURATION = 24;
+    private static final int OFFSET_SPEED = 32;
+
+    private final File file;
+    private final MappedByteBuffer buffer;
+    private int version = 0;
+
+    private PositionClock(File file, MappedByteBuffer buffer) {
+        this.file = file;
+        this.buffer = buffer;
+    }
+
+    static PositionClock open(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(SIZE);
+            MappedByteBuffer buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, SIZE);
+            buffer.order(ByteOrder.nativeOrder());
+            return new PositionClock(file, buffer);
+        }
+    }
+
+    String path() {
+        return file.getAbsolutePath();
+    }
+
+    /**
+     * 发布一次快照（仅在状态变化时调用，读方自行按速率外推进度）
+     */
+    void publish(int state, long positionMs, long durationMs, float speed) {
+        long now = System.nanoTime();
+        // 每段写入放在独立的同步块中：monitor 退出即释放屏障，
+        // 保证读方看到偶数版本号时字段已全部写完
+        synchronized (this) {
+            buffer.putInt(OFFSET_VERSION, ++version);
+        }
+        synchronized (this) {
+            buffer.putInt(OFFSET_STATE, state);
+            buffer.putLong(OFFSET_POSITION, positionMs);
+            buffer.putLong(OFFSET_TIMESTAMP, now);
+            buffer.putLong(OFFSET_DURATION, durationMs);
+            buffer.putFloat(OFFSET_SPEED, speed);
+        }
+        synchronized (this) {
+            buffer.putInt(OFFSET_VERSION, ++version);
+        }
+    }
+
+    void close() {
+        publish(PlayerState.IDLE, 0, 0, 1f);
+        //noinspection ResultOfMethodCallIgnored
+        file.delete();
+    }
+}
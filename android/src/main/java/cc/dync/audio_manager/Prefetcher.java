@@ -0,0 +1,75 @@
+package cc.dync.audio_manager;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.os.PowerManager;
+import android.os.Process;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 下一首预取
+ * 在后台低优先级线程把队列中接下来 ITEMS 首的开头 SECONDS 秒（按 ASSUMED_BITRATE 估算字节数）写入头部缓存、
+ * 封面写入封面缓存。仅在不计流量的网络且未开启省电模式时进行；
+ * 每次重新调度都会使之前排队或进行中的任务失效（队列变化、切歌）
+ */
+final class Prefetcher {
+    static final int ITEMS = 2;
+    private static final int SECONDS = 20;
+    private static final int ASSUMED_BITRATE = 320_000;//bit/s，按常见的最高码率估算，宁多勿少
+    static final long HEAD_BYTES = (long) SECONDS * ASSUMED_BITRATE / 8;
+
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(() -> {
+            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+            runnable.run();
+        }, "audio_manager_prefetch");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final AtomicInteger generation = new AtomicInteger();
+
+    private Prefetcher() {
+    }
+
+    /**
+     * 以 items 替换当前预取计划
+     */
+    static void schedule(Context context, List<MediaPlayerHelper.MediaInfo> items) {
+        final int current = generation.incrementAndGet();
+        final Context appContext = context.getApplicationContext();
+        if (items.isEmpty() || !allowed(appContext)) return;
+        final MediaCache.Cancel cancel = () -> generation.get() != current || !allowed(appContext);
+        for (MediaPlayerHelper.MediaInfo item : items) {
+            if (item == null || item.isAsset || item.url == null || !item.url.startsWith("http")) continue;
+            executor.execute(() -> {
+                if (cancel.isCancelled()) return;
+                if (OfflineDownloads.completed(appContext, item.url) == null) {
+                    // 有多个码率时预取按当前估计会选中的那个
+                    String url = item.variants.isEmpty()
+                            ? item.url : item.variants.get(ThroughputEstimator.select(item.variants)).url;
+                    MediaCache.fetchHead(appContext, url, HEAD_BYTES, cancel);
+                }
+                if (cancel.isCancelled()) return;
+                CoverCache.fetch(appContext, item.cover);
+            });
+        }
+    }
+
+    /**
+     * 取消尚未完成的预取
+     */
+    static void cancel() {
+        generation.incrementAndGet();
+    }
+
+    private static boolean allowed(Context context) {
+        ConnectivityManager connectivity = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+        if (connectivity == null || connectivity.isActiveNetworkMetered()) return false;
+        PowerManager power = (PowerManager) context.getSystemService(Context.POWER_SERVICE);
+        return power == null || !power.isPowerSaveMode();
+    }
+}
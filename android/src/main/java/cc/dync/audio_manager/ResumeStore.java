@@ -0,0 +1,206 @@
+package cc.dync.audio_manager;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * 续播进度索引
+ * 以 url 的 64 位哈希为键的开放寻址哈希表，整表内存映射：
+ * 查询与写入都是 O(1) 的内存读写，进度回调每秒写一次只落在页缓存里，
+ * 只在暂停/停止时 force 一次，不会每次回调都 fsync。进程被杀后映射页仍由内核写回
+ * <p>
+ * 布局：头部 magic | capacity | count | 保留，之后每槽 16 字节：
+ * int64 url 哈希(0 表示空槽) | int32 进度(ms) | int32 更新时间(秒)。
+ * 只存哈希不存 url，10 万条时碰撞概率约 1e-10，可以忽略
+ */
+final class ResumeStore {
+    private static final String TAG = "ResumeStore";
+    private static final String FILE_NAME = "audio_manager_resume.idx";
+    private static final int MAGIC = 0x414d5253;
+    private static final int HEADER = 16;
+    private static final int SLOT = 16;
+    private static final int MIN_CAPACITY = 1 << 12;
+    private static final float LOAD_FACTOR = 0.7f;
+
+    private static ResumeStore instance;
+
+    private final File file;
+    private MappedByteBuffer buffer;
+    private int capacity;
+    private int count;
+    private boolean dirty = false;
+    private boolean broken = false;//文件无法打开时不再重试，续播退化为从头播放
+
+    ResumeStore(File file) {
+        this.file = file;
+    }
+
+    static synchronized ResumeStore get(Context context) {
+        if (instance == null) {
+            instance = new ResumeStore(new File(context.getFilesDir(), FILE_NAME));
+        }
+        return instance;
+    }
+
+    /**
+     * 查询续播进度，没有记录返回 0
+     */
+    synchronized int get(String url) {
+        if (url == null || !open()) return 0;
+        long hash = hash(url);
+        int slot = find(buffer, capacity, hash);
+        if (buffer.getLong(offset(slot)) != hash) return 0;
+        return buffer.getInt(offset(slot) + 8);
+    }
+
+    /**
+     * 记录续播进度，0 表示从头播放（已播完的曲目写 0）
+     */
+    synchronized void put(String url, int positionMs) {
+        if (url == null || url.isEmpty() || !open()) return;
+        long hash = hash(url);
+        int slot = find(buffer, capacity, hash);
+        if (buffer.getLong(offset(slot)) != hash) {
+            if (positionMs <= 0) return;
+            if (count + 1 > capacity * LOAD_FACTOR) {
+                if (!grow()) return;
+                slot = find(buffer, capacity, hash);
+            }
+            buffer.putLong(offset(slot), hash);
+            buffer.putInt(8, ++count);
+        }
+        buffer.putInt(offset(slot) + 8, Math.max(0, positionMs));
+        buffer.putInt(offset(slot) + 12, (int) (System.currentTimeMillis() / 1000));
+        dirty = true;
+    }
+
+    /**
+     * 将修改写回磁盘，只在暂停/停止等低频时机调用
+     */
+    synchronized void flush() {
+        if (!dirty || buffer == null) return;
+        buffer.force();
+        dirty = false;
+    }
+
+    /**
+     * 是否有尚未 force 到磁盘的修改
+     */
+    synchronized boolean isDirty() {
+        return dirty;
+    }
+
+    private boolean open() {
+        if (buffer != null) return true;
+        if (broken) return false;
+        try {
+            if (file.length() > HEADER && load()) return true;
+            buffer = create(file, MIN_CAPACITY);
+            capacity = MIN_CAPACITY;
+            count = 0;
+            return true;
+        } catch (IOException e) {
+            Log.e(TAG, "open: ", e);
+            broken = true;
+            return false;
+        }
+    }
+
+    /**
+     * 载入已有索引，头部不合法时返回 false 由调用方重建
+     */
+    private boolean load() throws IOException {
+        MappedByteBuffer mapped;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            mapped = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, raf.length());
+        }
+        int fileCapacity = mapped.getInt(4);
+        if (mapped.getInt(0) != MAGIC || fileCapacity < MIN_CAPACITY
+                || Integer.bitCount(fileCapacity) != 1
+                || mapped.capacity() != HEADER + (long) fileCapacity * SLOT) {
+            Log.w(TAG, "resume index corrupted, recreate");
+            return false;
+        }
+        buffer = mapped;
+        capacity = fileCapacity;
+        count = mapped.getInt(8);
+        return true;
+    }
+
+    private static MappedByteBuffer create(File target, int capacity) throws IOException {
+        MappedByteBuffer mapped;
+        try (RandomAccessFile raf = new RandomAccessFile(target, "rw")) {
+            // 先截断再扩展，新文件内容全部为 0 即全部空槽
+            raf.setLength(0);
+            raf.setLength(HEADER + (long) capacity * SLOT);
+            mapped = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, raf.length());
+        }
+        mapped.putInt(0, MAGIC);
+        mapped.putInt(4, capacity);
+        mapped.putInt(8, 0);
+        return mapped;
+    }
+
+    /**
+     * 容量翻倍：写入临时文件后 rename 替换，中途失败不会破坏原索引
+     */
+    private boolean grow() {
+        int newCapacity = capacity << 1;
+        File tmp = new File(file.getPath() + ".tmp");
+        try {
+            MappedByteBuffer next = create(tmp, newCapacity);
+            for (int slot = 0; slot < capacity; slot++) {
+                long hash = buffer.getLong(offset(slot));
+                if (hash == 0) continue;
+                int target = find(next, newCapacity, hash);
+                next.putLong(offset(target), hash);
+                next.putLong(offset(target) + 8, buffer.getLong(offset(slot) + 8));
+            }
+            next.putInt(8, count);
+            next.force();
+            if (!tmp.renameTo(file)) throw new IOException("rename failed");
+            buffer = next;
+            capacity = newCapacity;
+            dirty = false;
+            return true;
+        } catch (IOException e) {
+            Log.e(TAG, "grow: ", e);
+            //noinspection ResultOfMethodCallIgnored
+            tmp.delete();
+            return false;
+        }
+    }
+
+    /**
+     * 线性探测：返回哈希所在槽，不存在时返回第一个空槽
+     */
+    private static int find(MappedByteBuffer table, int capacity, long hash) {
+        int mask = capacity - 1;
+        int slot = (int) (hash ^ (hash >>> 32)) & mask;
+        while (true) {
+            long current = table.getLong(offset(slot));
+            if (current == 0 || current == hash) return slot;
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private static int offset(int slot) {
+        return HEADER + slot * SLOT;
+    }
+
+    // FNV-1a 64 位，0 保留给空槽；媒体与封面缓存也用它生成文件名
+    static long hash(String url) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < url.length(); i++) {
+            hash ^= url.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash == 0 ? 1 : hash;
+    }
+}
@@ -0,0 +1,123 @@
+package cc.dync.audio_manager;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 播放会话快照
+ * 进程在后台被系统回收后，MediaPlayerService 仅凭这个小二进制文件即可重建并准备播放，
+ * 无需等待 Flutter 引擎冷启动。序列化在调用线程完成，落盘放到单独线程：写临时文件后 rename，
+ * 中途被杀也不会留下半个快照
+ */
+final class SessionStore {
+    private static final String TAG = "SessionStore";
+    private static final String FILE_NAME = "audio_manager_session.bin";
+    private static final int MAGIC = 0x414d5353;
+    private static final int VERSION = 1;
+
+    private static final ExecutorService writer = Executors.newSingleThreadExecutor();
+
+    static final class Session {
+        String url;
+        String title;
+        String desc;
+        String cover;//封面缓存 key：网络地址或本地路径
+        boolean isAsset;
+        int position;//ms
+        float speed = 1f;
+        int queueIndex = -1;
+        long savedAt;
+    }
+
+    private SessionStore() {
+    }
+
+    private static File file(Context context) {
+        return new File(context.getFilesDir(), FILE_NAME);
+    }
+
+    static void save(Context context, Session session) {
+        final byte[] bytes;
+        try {
+            ByteArrayOutputStream bos = new ByteArrayOutputStream(256);
+            DataOutputStream out = new DataOutputStream(bos);
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(nonNull(session.url));
+            out.writeUTF(nonNull(session.title));
+            out.writeUTF(nonNull(session.desc));
+            out.writeUTF(nonNull(session.cover));
+            out.writeBoolean(session.isAsset);
+            out.writeInt(session.position);
+            out.writeFloat(session.speed);
+            out.writeInt(session.queueIndex);
+            out.writeLong(session.savedAt);
+            out.flush();
+            bytes = bos.toByteArray();
+        } catch (IOException e) {
+            Log.e(TAG, "save: ", e);
+            return;
+        }
+        final File target = file(context);
+        writer.execute(() -> {
+            File tmp = new File(target.getPath() + ".tmp");
+            try (FileOutputStream fos = new FileOutputStream(tmp)) {
+                fos.write(bytes);
+                fos.getFD().sync();
+            } catch (IOException e) {
+                Log.e(TAG, "write: ", e);
+                return;
+            }
+            if (!tmp.renameTo(target)) Log.e(TAG, "rename failed");
+        });
+    }
+
+    /**
+     * 读取快照，不存在或格式不符返回 null
+     */
+    static Session load(Context context) {
+        File source = file(context);
+        if (!source.exists()) return null;
+        try (DataInputStream in = new DataInputStream(new FileInputStream(source))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) return null;
+            Session session = new Session();
+            session.url = nullIfEmpty(in.readUTF());
+            session.title = nullIfEmpty(in.readUTF());
+            session.desc = nullIfEmpty(in.readUTF());
+            session.cover = nullIfEmpty(in.readUTF());
+            session.isAsset = in.readBoolean();
+            session.position = in.readInt();
+            session.speed = in.readFloat();
+            session.queueIndex = in.readInt();
+            session.savedAt = in.readLong();
+            return session.url == null ? null : session;
+        } catch (IOException e) {
+            Log.e(TAG, "load: ", e);
+            return null;
+        }
+    }
+
+    static void clear(Context context) {
+        final File target = file(context);
+        //noinspection ResultOfMethodCallIgnored
+        writer.execute(target::delete);
+    }
+
+    private static String nonNull(String value) {
+        return value == null ? "" : value;
+    }
+
+    private static String nullIfEmpty(String value) {
+        return value.isEmpty() ? null : value;
+    }
+}
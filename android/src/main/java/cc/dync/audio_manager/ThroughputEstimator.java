@@ -0,0 +1,119 @@
+package cc.dync.audio_manager;
+
+import android.os.SystemClock;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 网络吞吐估计与码率选择
+ * 样本为一段时间内实际收到的字节数，按样本时长加权进入快慢两条 EWMA（半衰期 FAST/SLOW_HALF_LIFE_MS），
+ * 取两者较小值：带宽下降时快线立刻压低估计，短暂的突发又会被慢线抹平。
+ * 卡顿说明当前码率已超出实际带宽，直接把估计压到该码率以下
+ */
+final class ThroughputEstimator {
+    private static final double FAST_HALF_LIFE_MS = 2_000;
+    private static final double SLOW_HALF_LIFE_MS = 8_000;
+    private static final long DEFAULT_ESTIMATE = 1_000_000;//bit/s，没有样本时的估计
+    private static final double BANDWIDTH_FRACTION = 0.75;//只用估计带宽的一部分，留出波动余量
+    private static final double STALL_FACTOR = 0.8;
+    private static final long MIN_SAMPLE_BYTES = 64 * 1024;
+    private static final long MIN_SAMPLE_NS = 200_000_000L;
+
+    private static double fast = -1;
+    private static double slow = -1;
+    private static long samples = 0;
+    private static long lastSampleAt = 0;
+
+    private ThroughputEstimator() {
+    }
+
+    /**
+     * 累积小块读取，够量后作为一个样本提交；非线程安全，每个数据源各持一个
+     */
+    static final class Meter {
+        private long bytes;
+        private long nanos;
+
+        void add(int read, long elapsedNs) {
+            if (read <= 0) return;
+            bytes += read;
+            nanos += elapsedNs;
+            if (bytes >= MIN_SAMPLE_BYTES && nanos >= MIN_SAMPLE_NS) {
+                sample(bytes, nanos / 1_000_000);
+                bytes = 0;
+                nanos = 0;
+            }
+        }
+    }
+
+    static synchronized void sample(long bytes, long elapsedMs) {
+        if (bytes <= 0 || elapsedMs <= 0) return;
+        double bitrate = bytes * 8_000.0 / elapsedMs;
+        fast = blend(fast, bitrate, elapsedMs, FAST_HALF_LIFE_MS);
+        slow = blend(slow, bitrate, elapsedMs, SLOW_HALF_LIFE_MS);
+        samples++;
+        lastSampleAt = SystemClock.elapsedRealtime();
+    }
+
+    private static double blend(double current, double value, long weightMs, double halfLifeMs) {
+        if (current < 0) return value;
+        double alpha = 1 - Math.pow(0.5, weightMs / halfLifeMs);
+        return current + alpha * (value - current);
+    }
+
+    /**
+     * 在 bitrate 码率下发生了卡顿
+     */
+    static synchronized void onStall(int bitrate) {
+        if (bitrate <= 0) return;
+        double cap = bitrate * STALL_FACTOR;
+        fast = fast < 0 ? cap : Math.min(fast, cap);
+        slow = slow < 0 ? cap : Math.min(slow, cap);
+    }
+
+    /**
+     * 当前估计（bit/s）
+     */
+    static synchronized long estimate() {
+        if (fast < 0) return DEFAULT_ESTIMATE;
+        return (long) Math.min(fast, slow);
+    }
+
+    /**
+     * 选择估计带宽能承受的最高码率，都承受不了时取最低码率
+     */
+    static int select(List<MediaPlayerHelper.Variant> variants) {
+        long budget = (long) (estimate() * BANDWIDTH_FRACTION);
+        int best = -1;
+        int lowest = -1;
+        for (int i = 0; i < variants.size(); i++) {
+            int bitrate = variants.get(i).bitrate;
+            if (lowest < 0 || bitrate < variants.get(lowest).bitrate) lowest = i;
+            if (bitrate <= budget && (best < 0 || bitrate > variants.get(best).bitrate)) best = i;
+        }
+        return best >= 0 ? best : lowest;
+    }
+
+    /**
+     * 比 current 低一档的码率，已是最低返回 -1
+     */
+    static int lower(List<MediaPlayerHelper.Variant> variants, int current) {
+        int limit = variants.get(current).bitrate;
+        int next = -1;
+        for (int i = 0; i < variants.size(); i++) {
+            int bitrate = variants.get(i).bitrate;
+            if (bitrate < limit && (next < 0 || bitrate > variants.get(next).bitrate)) next = i;
+        }
+        return next;
+    }
+
+    static synchronized Map<String, Object> stats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("estimate", estimate());
+        stats.put("samples", samples);
+        stats.put("sinceLastSampleMs", samples == 0 ? -1 : SystemClock.elapsedRealtime() - lastSampleAt);
+        return stats;
+    }
+}
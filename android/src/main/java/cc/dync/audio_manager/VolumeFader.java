@@ -0,0 +1,99 @@
+package cc.dync.audio_manager;
+
+import android.media.MediaPlayer;
+import android.media.VolumeShaper;
+import android.os.Build;
+import android.os.Handler;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.RequiresApi;
+
+/**
+ * 音量渐变（交叉淡入淡出）
+ * Android 8.0+ 使用 VolumeShaper，由音频框架在混音线程内完成渐变；
+ * 低版本退化为主线程按固定步长 setVolume
+ */
+final class VolumeFader {
+    private static final String TAG = "VolumeFader";
+    private static final long STEP_MS = 50;//低版本渐变步长
+
+    private VolumeFader() {
+    }
+
+    /**
+     * 淡入：需在 player.start() 之前调用
+     */
+    static void fadeIn(MediaPlayer player, long durationMs, Handler handler) {
+        fade(player, durationMs, 0f, 1f, handler, null);
+    }
+
+    /**
+     * 淡出：结束后回调 onEnd（通常用于释放播放器）
+     */
+    static void fadeOut(MediaPlayer player, long durationMs, Handler handler, Runnable onEnd) {
+        fade(player, durationMs, 1f, 0f, handler, onEnd);
+    }
+
+    private static void fade(MediaPlayer player, long durationMs, float from, float to,
+                             Handler handler, Runnable onEnd) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            try {
+                shape(player, durationMs, from, to, handler, onEnd);
+                return;
+            } catch (IllegalStateException e) {
+                Log.w(TAG, "VolumeShaper unavailable, fallback to stepped fade", e);
+            }
+        }
+        step(player, durationMs, from, to, handler, onEnd);
+    }
+
+    @RequiresApi(api = Build.VERSION_CODES.O)
+    private static void shape(MediaPlayer player, long durationMs, float from, float to,
+                              Handler handler, Runnable onEnd) {
+        VolumeShaper.Configuration config = new VolumeShaper.Configuration.Builder()
+                .setDuration(Math.max(1, durationMs))
+                .setCurve(new float[]{0f, 1f}, new float[]{from, to})
+                .setInterpolatorType(VolumeShaper.Configuration.INTERPOLATOR_TYPE_LINEAR)
+                .build();
+        VolumeShaper shaper = player.createVolumeShaper(config);
+        shaper.apply(VolumeShaper.Operation.PLAY);
+        handler.postDelayed(() -> {
+            // 淡入结束后音量停在 1.0，关闭 shaper 不会产生跳变；淡出的播放器随后即被释放
+            try {
+                shaper.close();
+            } catch (IllegalStateException ignored) {
+            }
+            if (onEnd != null) onEnd.run();
+        }, durationMs);
+    }
+
+    private static void step(MediaPlayer player, long durationMs, float from, float to,
+                             Handler handler, Runnable onEnd) {
+        final long begin = SystemClock.uptimeMillis();
+        setVolume(player, from);
+        handler.post(new Runnable() {
+            @Override
+            public void run() {
+                float fraction = durationMs <= 0 ? 1f
+                        : Math.min(1f, (SystemClock.uptimeMillis() - begin) / (float) durationMs);
+                if (!setVolume(player, from + (to - from) * fraction)) return;
+                if (fraction < 1f) {
+                    handler.postDelayed(this, STEP_MS);
+                } else if (onEnd != null) {
+                    onEnd.run();
+                }
+            }
+        });
+    }
+
+    private static boolean setVolume(MediaPlayer player, float volume) {
+        try {
+            player.setVolume(volume, volume);
+            return true;
+        } catch (IllegalStateException e) {
+            // 播放器已被释放，终止渐变
+            return false;
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package cc.dync.audio_manager;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class CueSchedulerTest {
+    private static final long LATENCY_MS = 8;//定时器最大迟到
+    private static final long GRANULARITY_MS = 10;//进度读数粒度
+
+    @Test
+    public void nextDueIsTheNearestCueOrLoopEnd() {
+        CueScheduler cues = new CueScheduler();
+        cues.addCue("a", 1000);
+        cues.addCue("b", 3000);
+        assertEquals(1000, cues.nextDue(0));
+        assertEquals(1000, cues.nextDue(1000));
+        assertEquals(3000, cues.nextDue(1001));
+        assertEquals(-1, cues.nextDue(3001));
+
+        cues.setLoop(2000, 2500);
+        assertEquals(1000, cues.nextDue(500));
+        assertEquals(2500, cues.nextDue(1500));
+        // 越过 B 之后循环不生效
+        assertEquals(3000, cues.nextDue(2600));
+    }
+
+    @Test
+    public void delayIsScaledBySpeed() {
+        CueScheduler cues = new CueScheduler();
+        cues.addCue("a", 1000);
+        assertEquals(500, cues.delayMs(500, 1f));
+        assertEquals(250, cues.delayMs(500, 2f));
+        assertEquals(1000, cues.delayMs(500, 0.5f));
+        assertEquals(-1, cues.delayMs(1001, 1f));
+    }
+
+    @Test
+    public void earlyWakeOnlyTopsUpTheRemainingTime() {
+        CueScheduler cues = new CueScheduler();
+        cues.addCue("a", 1000);
+
+        CueScheduler.Wake wake = cues.onWake(0, 900, 2f);
+        assertNotNull(wake);
+        assertTrue(wake.fired.isEmpty());
+        assertEquals(50, wake.retryMs);
+
+        // 容差内视为到期，抖动为负但不超过容差
+        wake = cues.onWake(0, 1000 - CueScheduler.TOLERANCE_MS, 1f);
+        assertNotNull(wake);
+        assertEquals(-1, wake.retryMs);
+        assertEquals(1, wake.fired.size());
+        assertEquals("a", wake.fired.get(0).id);
+        assertNull(cues.onWake(0, 1000, 1f));
+    }
+
+    @Test
+    public void firesEveryCueOnceWithBoundedJitter() {
+        for (float speed : new float[]{0.5f, 1f, 1.5f, 2f}) {
+            CueScheduler cues = new CueScheduler();
+            List<String> ids = new ArrayList<>();
+            for (long time = 250; time < 20_000; time += 733) {
+                cues.addCue("c" + time, time);
+                ids.add("c" + time);
+            }
+            cues.addCue("same", 983);//与 c983 同一时刻
+            Simulation simulation = new Simulation(cues, speed);
+            simulation.start();
+            simulation.runUntil((long) (21_000 / speed));
+
+            assertEquals(ids.size() + 1, simulation.fired.size());
+            assertTrue(simulation.fired.containsAll(ids));
+            assertTrue(simulation.fired.contains("same"));
+            assertJitterBounded(simulation, speed);
+        }
+    }
+
+    @Test
+    public void loopSeeksBackAtB() {
+        CueScheduler cues = new CueScheduler();
+        cues.setLoop(2000, 4000);
+        cues.addCue("inside", 3000);
+        Simulation simulation = new Simulation(cues, 1f);
+        simulation.start();
+        simulation.runUntil(9_000);
+
+        // 首次 4000ms 到达 B，之后每 2000ms 一轮
+        assertEquals(3, simulation.loopBacks);
+        for (long position : simulation.loopBackPositions) {
+            assertTrue("loop back at " + position, position >= 4000 - CueScheduler.TOLERANCE_MS);
+            assertTrue("loop back at " + position, position <= 4000 + maxJitter(1f));
+        }
+        // 提示点只触发一次
+        assertEquals(Arrays.asList("inside"), simulation.fired);
+        assertTrue(simulation.position() >= 2000 && simulation.position() < 4000);
+
+        // 取消循环后不再跳回
+        cues.setLoop(-1, -1);
+        simulation.schedule();
+        simulation.runUntil(20_000);
+        assertEquals(3, simulation.loopBacks);
+    }
+
+    @Test
+    public void seekReschedulesAndSkipsPassedCues() {
+        CueScheduler cues = new CueScheduler();
+        cues.addCue("skipped", 1000);
+        cues.addCue("after", 6000);
+        Simulation simulation = new Simulation(cues, 1f);
+        simulation.start();
+        simulation.runUntil(500);
+        simulation.seek(5000);
+        simulation.runUntil(10_000);
+
+        assertEquals(Arrays.asList("after"), simulation.fired);
+        long firedAt = simulation.firedAt.get(0);
+        assertTrue("fired at " + firedAt, firedAt >= 1500 - CueScheduler.TOLERANCE_MS);
+        assertTrue("fired at " + firedAt, firedAt <= 1500 + LATENCY_MS + GRANULARITY_MS);
+        assertJitterBounded(simulation, 1f);
+
+        // 拖回去之后，未触发的提示点仍然有效
+        simulation.seek(0);
+        simulation.runUntil(12_000);
+        assertEquals(Arrays.asList("after", "skipped"), simulation.fired);
+    }
+
+    @Test
+    public void rateChangeReschedules() {
+        CueScheduler cues = new CueScheduler();
+        cues.addCue("a", 4000);
+        Simulation simulation = new Simulation(cues, 1f);
+        simulation.start();
+        simulation.runUntil(1000);
+        simulation.setSpeed(2f);
+        simulation.runUntil(10_000);
+
+        // 剩余 3000ms 进度按 2 倍速只需 1500ms
+        assertEquals(Arrays.asList("a"), simulation.fired);
+        long firedAt = simulation.firedAt.get(0);
+        assertTrue("fired at " + firedAt, firedAt >= 2500 - CueScheduler.TOLERANCE_MS);
+        assertTrue("fired at " + firedAt, firedAt <= 2500 + LATENCY_MS + GRANULARITY_MS);
+        assertJitterBounded(simulation, 2f);
+    }
+
+    /**
+     * 抖动下限为提前唤醒的容差，上限为定时器迟到按倍速折算的进度加上进度粒度
+     */
+    private static long maxJitter(float speed) {
+        return (long) Math.ceil(LATENCY_MS * speed) + GRANULARITY_MS;
+    }
+
+    private static void assertJitterBounded(Simulation simulation, float speed) {
+        for (long jitter : simulation.jitters) {
+            assertTrue("jitter " + jitter, jitter >= -CueScheduler.TOLERANCE_MS);
+            assertTrue("jitter " + jitter + " at speed " + speed, jitter <= maxJitter(speed));
+        }
+    }
+
+    /**
+     * 模拟播放器与定时器：进度按倍速随时间推进，读数按 GRANULARITY_MS 取整；
+     * 定时器在设定时长后再随机迟到至多 LATENCY_MS 唤醒。唤醒后的处理与 MediaPlayerHelper 的
+     * scheduleCue / fireCues 相同
+     */
+    private static final class Simulation {
+        final CueScheduler cues;
+        final Random random = new Random(42);
+        final List<String> fired = new ArrayList<>();
+        final List<Long> firedAt = new ArrayList<>();
+        final List<Long> jitters = new ArrayList<>();
+        final List<Long> loopBackPositions = new ArrayList<>();
+        int loopBacks = 0;
+
+        float speed;
+        long now = 0;
+        long basePosition = 0;
+        long baseTime = 0;
+        long anchor = 0;
+        long wakeAt = -1;
+
+        Simulation(CueScheduler cues, float speed) {
+            this.cues = cues;
+            this.speed = speed;
+        }
+
+        long exactPosition() {
+            return basePosition + (long) ((now - baseTime) * speed);
+        }
+
+        long position() {
+            long exact = exactPosition();
+            return exact - exact % GRANULARITY_MS;
+        }
+
+        void start() {
+            schedule();
+        }
+
+        void seek(long position) {
+            basePosition = position;
+            baseTime = now;
+            schedule();
+        }
+
+        void setSpeed(float speed) {
+            basePosition = exactPosition();
+            baseTime = now;
+            this.speed = speed;
+            schedule();
+        }
+
+        void schedule() {
+            anchor = position();
+            long delay = cues.delayMs(anchor, speed);
+            wakeAt = delay < 0 ? -1 : now + delay + latency();
+        }
+
+        long latency() {
+            return (long) (random.nextDouble() * (LATENCY_MS + 1));
+        }
+
+        void runUntil(long end) {
+            while (wakeAt >= 0 && wakeAt <= end) {
+                now = wakeAt;
+                wakeAt = -1;
+                long position = position();
+                CueScheduler.Wake wake = cues.onWake(anchor, position, speed);
+                if (wake == null) continue;
+                if (wake.retryMs > 0) {
+                    wakeAt = now + wake.retryMs + latency();
+                    continue;
+                }
+                for (CueScheduler.Cue cue : wake.fired) {
+                    fired.add(cue.id);
+                    firedAt.add(now);
+                    jitters.add(position - cue.timeMs);
+                }
+                if (wake.loopBack) {
+                    loopBacks++;
+                    loopBackPositions.add(position);
+                    seek(cues.loopStart());
+                    continue;
+                }
+                schedule();
+            }
+            now = end;
+        }
+    }
+}
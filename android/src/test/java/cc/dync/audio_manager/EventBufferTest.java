@@ -0,0 +1,61 @@
+package cc.dync.audio_manager;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class EventBufferTest {
+
+    private static List<String> methods(EventBuffer buffer) {
+        List<String> methods = new ArrayList<>();
+        for (EventBuffer.Event event : buffer.drain()) methods.add(event.method);
+        return methods;
+    }
+
+    @Test
+    public void keyedEventsAreCoalesced() {
+        EventBuffer buffer = new EventBuffer(8);
+        buffer.add("timeupdate", 1, "progress");
+        buffer.add("playstatus", true, null);
+        buffer.add("timeupdate", 2, "progress");
+        List<EventBuffer.Event> events = buffer.drain();
+        assertEquals(2, events.size());
+        assertEquals("playstatus", events.get(0).method);
+        assertEquals(2, events.get(1).arguments);
+    }
+
+    @Test
+    public void overflowEvictsKeyedEventsBeforeTransitions() {
+        EventBuffer buffer = new EventBuffer(3);
+        buffer.add("playstatus", true, null);
+        buffer.add("timeupdate", 1, "progress");
+        buffer.add("buffering", 10, "buffering");
+        buffer.add("ended", null, null);
+        buffer.add("queueIndex", 1, null);
+        assertEquals(Arrays.asList("playstatus", "ended", "queueIndex"), methods(buffer));
+    }
+
+    @Test
+    public void overflowOfTransitionsIsReportedAsDropped() {
+        EventBuffer buffer = new EventBuffer(2);
+        buffer.add("playstatus", true, null);
+        buffer.add("ended", null, null);
+        buffer.add("error", "x", null);
+        assertEquals(Arrays.asList("ended", "error"), methods(buffer));
+
+        Map<String, Object> envelope = new HashMap<>();
+        buffer.stamp(envelope);
+        assertEquals(1L, envelope.get("dropped"));
+        assertEquals(2L, envelope.get("seq"));
+        buffer.stamp(envelope);
+        assertFalse(envelope.containsKey("dropped"));
+        assertEquals(3L, envelope.get("seq"));
+    }
+}
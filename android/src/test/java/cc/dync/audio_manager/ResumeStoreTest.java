@@ -0,0 +1,155 @@
+package cc.dync.audio_manager;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ResumeStoreTest {
+    private static final int ENTRIES = 100_000;
+    private static final int HEADER = 16;
+    private static final int SLOT = 16;
+    private static final int MIN_CAPACITY = 1 << 12;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static String url(int i) {
+        return "https://example.com/audio/" + i + ".mp3";
+    }
+
+    private static int positionOf(int i) {
+        return 1 + i % 3_600_000;
+    }
+
+    private static int capacityOf(File file) {
+        return (int) ((file.length() - HEADER) / SLOT);
+    }
+
+    @Test
+    public void storesAndFindsOneHundredThousandEntries() throws IOException {
+        File file = folder.newFile("resume.idx");
+        ResumeStore store = new ResumeStore(file);
+        for (int i = 0; i < ENTRIES; i++) {
+            store.put(url(i), positionOf(i));
+        }
+        for (int i = 0; i < ENTRIES; i++) {
+            assertEquals(url(i), positionOf(i), store.get(url(i)));
+        }
+        assertEquals(0, store.get(url(ENTRIES)));
+
+        // 从 MIN_CAPACITY 按 2 倍增长，装载率不超过 0.7，线性探测的期望长度保持常数
+        int capacity = capacityOf(file);
+        assertEquals(HEADER + (long) capacity * SLOT, file.length());
+        assertEquals(1, Integer.bitCount(capacity));
+        assertTrue(capacity > MIN_CAPACITY);
+        assertTrue(ENTRIES <= capacity * 0.7f);
+        assertTrue(ENTRIES > capacity / 2 * 0.7f);
+    }
+
+    @Test
+    public void survivesReopen() throws IOException {
+        File file = folder.newFile("resume.idx");
+        ResumeStore store = new ResumeStore(file);
+        for (int i = 0; i < ENTRIES; i++) {
+            store.put(url(i), positionOf(i));
+        }
+        store.put(url(7), 0);//播完写 0
+        store.flush();
+
+        ResumeStore reopened = new ResumeStore(file);
+        for (int i = 0; i < ENTRIES; i++) {
+            assertEquals(url(i), i == 7 ? 0 : positionOf(i), reopened.get(url(i)));
+        }
+        // 重新打开后继续写入，计数沿用文件里的值，不会提前或推迟扩容
+        int capacity = capacityOf(file);
+        reopened.put(url(ENTRIES), 42);
+        assertEquals(42, reopened.get(url(ENTRIES)));
+        assertEquals(capacity, capacityOf(file));
+    }
+
+    @Test
+    public void corruptedHeaderIsRecreated() throws IOException {
+        File file = folder.newFile("resume.idx");
+        ResumeStore store = new ResumeStore(file);
+        store.put(url(1), 1000);
+        store.flush();
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.writeInt(0);
+        }
+        ResumeStore reopened = new ResumeStore(file);
+        assertEquals(0, reopened.get(url(1)));
+        reopened.put(url(1), 2000);
+        assertEquals(2000, reopened.get(url(1)));
+    }
+
+    @Test
+    public void linearProbingKeepsCollidingKeysApart() throws IOException {
+        // 找出落在同一初始槽的若干 url
+        int mask = MIN_CAPACITY - 1;
+        List<String> colliding = new ArrayList<>();
+        int target = slotOf("collide-0", mask);
+        for (int i = 0; colliding.size() < 5; i++) {
+            String candidate = "collide-" + i;
+            if (slotOf(candidate, mask) == target) colliding.add(candidate);
+        }
+        ResumeStore store = new ResumeStore(folder.newFile("resume.idx"));
+        for (int i = 0; i < colliding.size(); i++) {
+            store.put(colliding.get(i), 1000 * (i + 1));
+        }
+        store.put(colliding.get(2), 9999);
+        for (int i = 0; i < colliding.size(); i++) {
+            assertEquals(i == 2 ? 9999 : 1000 * (i + 1), store.get(colliding.get(i)));
+        }
+        // 未写入但同槽的 url 沿探测链找到空槽后返回 0
+        String absent = "collide-absent";
+        for (int i = 0; slotOf(absent, mask) != target; i++) absent = "collide-absent-" + i;
+        assertEquals(0, store.get(absent));
+    }
+
+    @Test
+    public void progressTicksAreNotForcedToDisk() throws IOException {
+        File file = folder.newFile("resume.idx");
+        ResumeStore store = new ResumeStore(file);
+        store.put(url(0), 1);
+        store.flush();
+        assertFalse(store.isDirty());
+
+        // 进度回调只写映射内存，由暂停/停止时的 flush 合并落盘
+        long length = file.length();
+        for (int tick = 1; tick <= 1000; tick++) {
+            store.put(url(0), tick * 1000);
+            assertTrue(store.isDirty());
+        }
+        assertEquals(length, file.length());
+        assertEquals(1_000_000, store.get(url(0)));
+        store.flush();
+        assertFalse(store.isDirty());
+        assertEquals(1_000_000, new ResumeStore(file).get(url(0)));
+    }
+
+    @Test
+    public void zeroPositionDoesNotInsert() throws IOException {
+        File file = folder.newFile("resume.idx");
+        ResumeStore store = new ResumeStore(file);
+        store.put(url(1), 0);
+        assertEquals(0, store.get(url(1)));
+        assertFalse(store.isDirty());
+        assertNotEquals(0, ResumeStore.hash(""));
+    }
+
+    private static int slotOf(String url, int mask) {
+        long hash = ResumeStore.hash(url);
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
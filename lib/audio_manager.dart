@@ -6,27 +6,101 @@ import 'package:audio_manager/src/local_file_io.dart'
     if (dart.library.html) 'package:audio_manager/src/local_file_stub.dart'
     as local_file;
 import 'package:audio_manager/src/audio_type.dart';
+import 'package:audio_manager/src/position_clock_ffi.dart'
+    if (dart.library.js_interop) 'package:audio_manager/src/position_clock_stub.dart'
+    if (dart.library.html) 'package:audio_manager/src/position_clock_stub.dart';
 import 'package:flutter/services.dart';
 
 export 'package:audio_manager/src/audio_info.dart';
 export 'package:audio_manager/src/audio_type.dart';
+export 'package:audio_manager/src/position_clock_ffi.dart'
+    if (dart.library.js_interop) 'package:audio_manager/src/position_clock_stub.dart'
+    if (dart.library.html) 'package:audio_manager/src/position_clock_stub.dart'
+    show PositionClock;
+export 'package:audio_manager/src/position_snapshot.dart';
 
 class AudioManager {
   static AudioManager? _instance;
   static AudioManager get instance => _getInstance();
 
   static AudioManager _getInstance() {
-    _instance ??= AudioManager._();
+    _instance ??= AudioManager._(defaultPlayerId);
     return _instance!;
   }
 
   static final MethodChannel _channel = const MethodChannel('audio_manager');
 
-  AudioManager._() {
-    _channel.setMethodCallHandler(_handler);
+  /// Identifier of the player used by [instance]
+  static const String defaultPlayerId = "default";
+  static final Map<String, AudioManager> _players = {};
+
+  /// Get (or create) an independent player identified by [playerId].
+  ///
+  /// Each player owns its own native player, progress clock and events, so
+  /// e.g. an ambience track and a voice track can play at the same time.
+  /// The notification shows the primary player, see [setPrimary].
+  ///
+  /// ⚠️ Only Android runs players concurrently; other platforms share one player
+  static AudioManager player(String playerId) {
+    if (playerId == defaultPlayerId) return instance;
+    instance;
+    return _players.putIfAbsent(playerId, () => AudioManager._(playerId));
+  }
+
+  /// Identifier passed to the native side with every call
+  final String playerId;
+
+  AudioManager._(this.playerId) {
+    if (playerId != defaultPlayerId) return;
+    _channel.setMethodCallHandler(_dispatch);
     getCurrentVolume();
   }
 
+  static int? _lastSeq;
+
+  static Future<dynamic> _dispatch(MethodCall call) {
+    if (call.method == "event") {
+      // Sequenced envelope; a skipped number or a `dropped` count means events
+      // were dropped while the engine was detached, so resync once instead of
+      // polling. A fresh isolate has no previous seq and relies on `dropped`.
+      final Map event = call.arguments;
+      final int seq = event["seq"];
+      final int dropped = event["dropped"] ?? 0;
+      final int? lastSeq = _lastSeq;
+      _lastSeq = seq;
+      final result = _dispatch(MethodCall(event["method"], event["arguments"]));
+      if (dropped > 0 || (lastSeq != null && seq > lastSeq + 1)) {
+        for (final player in [instance, ..._players.values]) {
+          player._resync();
+        }
+      }
+      return result;
+    }
+    if (call.method == "playerEvent") {
+      final Map event = call.arguments;
+      final player = _players[event["playerId"]];
+      if (player == null) return Future.value(true);
+      return player._handler(MethodCall(event["method"], event["arguments"]));
+    }
+    return instance._handler(call);
+  }
+
+  Map<String, dynamic>? _withPlayer([Map<String, dynamic>? arguments]) {
+    if (playerId == defaultPlayerId) return arguments;
+    return {...?arguments, "playerId": playerId};
+  }
+
+  Future<T?> _invoke<T>(String method, [Map<String, dynamic>? arguments]) {
+    return _channel.invokeMethod<T>(method, _withPlayer(arguments));
+  }
+
+  /// [_invoke] for commands only Android implements; a no-op yielding null
+  /// on other platforms, see [_androidOnly].
+  Future<T?> _invokeAndroid<T>(String method,
+      [Map<String, dynamic>? arguments]) {
+    return _androidOnly<T>(method, _withPlayer(arguments));
+  }
+
   /// 是否资源加载中
   bool get isLoading => _isLoading;
   bool _isLoading = true;
@@ -67,6 +141,7 @@ class AudioManager {
     _audioList = list;
     if (playMode == PlayMode.shuffle) _resetShuffleQueue();
     _info = _selectTrack();
+    if (_nativeQueue) _invoke("setQueue", _queueArguments(true));
   }
 
   /// Currently playing subscript of [audioList]
@@ -97,6 +172,49 @@ class AudioManager {
         _error = null;
         _duration = Duration(milliseconds: call.arguments ?? 0);
         _onEvents(AudioManagerEvents.ready, _duration);
+        if (_crossfade > Duration.zero && !_nativeQueue) _preloadNext();
+        break;
+      case "queueIndex":
+        // The native queue switched tracks (notification, headset, track end)
+        final int queueIndex = call.arguments["index"];
+        final String queueReason = call.arguments["reason"] ?? "";
+        if (queueIndex < 0 || queueIndex >= _audioList.length) break;
+        if (playMode == PlayMode.shuffle) {
+          final queueCursor = _shuffleQueue.indexOf(queueIndex);
+          if (queueCursor >= 0) _shuffleCursor = queueCursor;
+        }
+        if (queueReason != "crossfade" &&
+            _info?.url != _audioList[queueIndex].url) {
+          _isLoading = true;
+          _initialize = true;
+        }
+        _curIndex = queueIndex;
+        _info = _audioList[queueIndex];
+        _onEvents(AudioManagerEvents.start, _info);
+        if (queueReason == "next") _onEvents(AudioManagerEvents.next, null);
+        if (queueReason == "previous") {
+          _onEvents(AudioManagerEvents.previous, null);
+        }
+        break;
+      case "crossfade":
+        // The native side already switched to the preloaded track
+        if (_preloadIndex == null) break;
+        if (playMode == PlayMode.shuffle && _shuffleQueue.isNotEmpty) {
+          _shuffleCursor = (_shuffleCursor + 1) % _shuffleQueue.length;
+        }
+        _curIndex = _preloadIndex!;
+        _preloadIndex = null;
+        _info = _audioList[_curIndex];
+        _position = Duration(milliseconds: 0);
+        _onEvents(AudioManagerEvents.start, _info);
+        break;
+      case "cue":
+        final cueArgs = Map<String, dynamic>.from(call.arguments);
+        _onEvents(AudioManagerEvents.cue, {
+          "id": cueArgs["id"],
+          "position": Duration(milliseconds: cueArgs["position"] ?? 0),
+          "jitter": Duration(milliseconds: cueArgs["jitter"] ?? 0),
+        });
         break;
       case "seekComplete":
         _position = Duration(milliseconds: call.arguments ?? 0);
@@ -149,6 +267,25 @@ class AudioManager {
         _volume = call.arguments;
         _onEvents(AudioManagerEvents.volumeChange, _volume);
         break;
+      case "recovering":
+        final recoveryArgs = Map<String, dynamic>.from(call.arguments);
+        _isLoading = true;
+        _onEvents(AudioManagerEvents.recovering, {
+          "attempt": recoveryArgs["attempt"],
+          "delay": Duration(milliseconds: recoveryArgs["delay"] ?? 0),
+        });
+        break;
+      case "probe":
+        final probeArgs = Map<String, dynamic>.from(call.arguments);
+        if (probeArgs["duration"] != null) {
+          probeArgs["duration"] = Duration(milliseconds: probeArgs["duration"]);
+        }
+        _onEvents(AudioManagerEvents.probe, probeArgs);
+        break;
+      case "download":
+        _onEvents(AudioManagerEvents.download,
+            Map<String, dynamic>.from(call.arguments));
+        break;
       default:
         _onEvents(AudioManagerEvents.unknow, call.arguments);
         break;
@@ -174,8 +311,16 @@ class AudioManager {
   /// callback events
   void onEvents(Events events) {
     _events = events;
+    if (!_watchingVolume && playerId == defaultPlayerId) {
+      // The native volume observer is created lazily; subscribing to events
+      // is what asks for volumeChange before any audio call.
+      _watchingVolume = true;
+      _channel.invokeMethod("watchVolume").catchError((_) => null);
+    }
   }
 
+  bool _watchingVolume = false;
+
   void _onEvents(AudioManagerEvents events, args) {
     if (_events == null) return;
     _events!(events, args);
@@ -194,6 +339,10 @@ class AudioManager {
   ///
   /// `desc`: Notification details; `cover`: cover image address, `network` address, or `asset` address;
   /// `auto`: Whether to play automatically, default is true;
+  /// `variants`: the same track at other bitrates, see [AudioInfo.variants]
+  /// `mirrors`: alternate URLs of the same file, see [AudioInfo.mirrors]
+  /// `embeddedCover`: take the notification cover from the file itself,
+  /// see [AudioInfo.embeddedCover]
   Future<String> start(String url, String title,
       {required String desc,
       required String cover,
@@ -201,7 +350,10 @@ class AudioManager {
       int titleMaxLines = 1,
       bool showPreviousButton = false,
       bool showNextButton = true,
-      bool showStopButton = true}) async {
+      bool showStopButton = true,
+      bool embeddedCover = false,
+      List<AudioVariant> variants = const [],
+      List<String> mirrors = const []}) async {
     if (url.isEmpty) return "[url] can not be null or empty";
     if (title.isEmpty) return "[title] can not be null or empty";
     _info = AudioInfo(url,
@@ -211,8 +363,12 @@ class AudioManager {
         titleMaxLines: titleMaxLines,
         showPreviousButton: showPreviousButton,
         showNextButton: showNextButton,
-        showStopButton: showStopButton);
+        showStopButton: showStopButton,
+        embeddedCover: embeddedCover,
+        variants: variants,
+        mirrors: mirrors);
     _audioList.insert(0, _info!);
+    if (_nativeQueue) await _invoke("setQueue", _queueArguments(true));
     return await play(index: 0, auto: auto);
   }
 
@@ -231,7 +387,10 @@ class AudioManager {
         titleMaxLines: audio.titleMaxLines,
         showPreviousButton: audio.showPreviousButton,
         showNextButton: audio.showNextButton,
-        showStopButton: audio.showStopButton);
+        showStopButton: audio.showStopButton,
+        embeddedCover: audio.embeddedCover,
+        variants: audio.variants,
+        mirrors: audio.mirrors);
   }
 
   /// Play specified subscript audio if you want
@@ -265,20 +424,9 @@ class AudioManager {
     _info = random;
     _onEvents(AudioManagerEvents.start, _info);
 
-    final regx = RegExp(r'^(http|https|file):\/\/\/?([\w.]+\/?)\S*');
-    final result = await _channel.invokeMethod('start', {
-      "url": _info!.url,
-      "title": _info!.title,
-      "desc": _info!.desc,
-      "cover": _info!.coverUrl,
-      "isAuto": _auto,
-      "isLocal": !regx.hasMatch(_info!.url),
-      "isLocalCover": !regx.hasMatch(_info!.coverUrl),
-      "titleMaxLines": _info!.titleMaxLines,
-      "showPreviousButton": _info!.showPreviousButton,
-      "showNextButton": _info!.showNextButton,
-      "showStopButton": _info!.showStopButton,
-    });
+    final arguments = _startArguments(_info!, _auto);
+    if (_nativeQueue) arguments["queueIndex"] = _curIndex;
+    final result = await _invoke('start', arguments);
     if (result is String && result.isNotEmpty) {
       _isLoading = false;
       _error = result;
@@ -287,6 +435,65 @@ class AudioManager {
     return result ?? "";
   }
 
+  Map<String, dynamic> _startArguments(AudioInfo info, bool auto) {
+    final regx = RegExp(r'^(http|https|file):\/\/\/?([\w.]+\/?)\S*');
+    return {
+      "url": info.url,
+      "title": info.title,
+      "desc": info.desc,
+      "cover": info.coverUrl,
+      "isAuto": auto,
+      "isLocal": !regx.hasMatch(info.url),
+      "isLocalCover": !regx.hasMatch(info.coverUrl),
+      "titleMaxLines": info.titleMaxLines,
+      "showPreviousButton": info.showPreviousButton,
+      "showNextButton": info.showNextButton,
+      "showStopButton": info.showStopButton,
+      "embeddedCover": info.embeddedCover,
+      if (info.variants.isNotEmpty)
+        "variants": info.variants.map((variant) => variant.toMap()).toList(),
+      if (info.mirrors.isNotEmpty) "mirrors": info.mirrors,
+    };
+  }
+
+  /// Crossfade duration between consecutive tracks, zero means hard cuts
+  Duration get crossfade => _crossfade;
+  Duration _crossfade = Duration.zero;
+  int? _preloadIndex;
+
+  /// Overlap the end of the current track with the start of the next one.
+  ///
+  /// The next track of [audioList] is prepared ahead of time and both are
+  /// faded natively. ⚠️ Android only; elsewhere tracks keep hard cuts and
+  /// [crossfade] stays zero.
+  Future<String> setCrossfade(Duration duration) async {
+    final value = duration.isNegative ? Duration.zero : duration;
+    final result = await _invokeAndroid<String>(
+        "setCrossfade", {"duration": value.inMilliseconds});
+    // Without native support there is nothing to preload for
+    if (result == null) return "";
+    _crossfade = value;
+    if (_crossfade > Duration.zero && !_isLoading && !_nativeQueue) {
+      _preloadNext();
+    }
+    return result ?? "";
+  }
+
+  int? _peekNextIndex() {
+    if (_audioList.length < 2 || playMode == PlayMode.single) return null;
+    if (playMode == PlayMode.shuffle) {
+      if (_shuffleQueue.length != _audioList.length) return null;
+      return _shuffleQueue[(_shuffleCursor + 1) % _shuffleQueue.length];
+    }
+    return (_curIndex + 1) % _audioList.length;
+  }
+
+  void _preloadNext() {
+    _preloadIndex = _peekNextIndex();
+    if (_preloadIndex == null) return;
+    _invoke("preload", _startArguments(_audioList[_preloadIndex!], true));
+  }
+
   /// Play or pause; that is, pause if currently playing, otherwise play
   ///
   /// ⚠️ Must be preloaded
@@ -299,7 +506,7 @@ class AudioManager {
       await play(index: _curIndex, auto: true);
       return true;
     } else {
-      bool playing = await _channel.invokeMethod("playOrPause");
+      bool playing = await _invoke("playOrPause");
       _setPlaying(playing);
       return playing;
     }
@@ -308,7 +515,7 @@ class AudioManager {
   /// to play status
   Future<bool> toPlay() async {
     if (_preprocessing().isNotEmpty) return false;
-    bool playing = await _channel.invokeMethod("play");
+    bool playing = await _invoke("play");
     _setPlaying(playing);
     return playing;
   }
@@ -316,7 +523,7 @@ class AudioManager {
   /// to pause status
   Future<bool> toPause() async {
     if (_preprocessing().isNotEmpty) return false;
-    bool playing = await _channel.invokeMethod("pause");
+    bool playing = await _invoke("pause");
     _setPlaying(playing);
     return playing;
   }
@@ -330,8 +537,7 @@ class AudioManager {
         position.inMilliseconds > duration.inMilliseconds) {
       return "[position] must be greater than 0 and less than the total duration";
     }
-    return await _channel
-        .invokeMethod("seekTo", {"position": position.inMilliseconds});
+    return await _invoke("seekTo", {"position": position.inMilliseconds});
   }
 
   /// `rate` Play rate, default [AudioRate.rate100] is 1.0
@@ -339,14 +545,14 @@ class AudioManager {
     if (_preprocessing().isNotEmpty) return _preprocessing();
     const rates = [0.5, 0.75, 1, 1.5, 1.75, 2];
     double rateValue = rates[rate.index].toDouble();
-    return await _channel.invokeMethod("rate", {"rate": rateValue});
+    return await _invoke("rate", {"rate": rateValue});
   }
 
   /// stop play
   void stop() {
     _reset();
     _initialize = false;
-    _channel.invokeMethod("stop");
+    _invoke("stop");
   }
 
   void _reset() {
@@ -361,13 +567,79 @@ class AudioManager {
   /// release all resource
   void release() {
     _reset();
-    _channel.invokeListMethod("release");
+    _channel.invokeListMethod("release", _withPlayer());
   }
 
   /// Update play details
   void updateLrc(String lrc) {
     if (_preprocessing().isNotEmpty) return;
-    _channel.invokeMethod("updateLrc", {"lrc": lrc});
+    _invoke("updateLrc", {"lrc": lrc});
+  }
+
+  /// Remember the playback position of every url natively and resume from it
+  /// on the next [start] of the same url. The seek happens before playback
+  /// starts, so there is no blip from the beginning and no extra round trip.
+  /// Tracks that were played to the end start over.
+  ///
+  /// ⚠️ Android only, a no-op elsewhere
+  Future<String> setResumeEnabled(bool enabled) async {
+    return await _invokeAndroid<String>("setResume", {"enabled": enabled}) ??
+        "";
+  }
+
+  /// The stored resume position of [url], zero if there is none.
+  ///
+  /// ⚠️ Android only
+  Future<Duration> resumePosition(String url) async {
+    final position =
+        await _invokeAndroid<int>("resumePosition", {"url": url});
+    return Duration(milliseconds: position ?? 0);
+  }
+
+  /// Fire a one-shot [AudioManagerEvents.cue] event when playback reaches
+  /// [position]. Adding an existing [id] moves it. Cues skipped by a seek do
+  /// not fire, and all cues are dropped when the track changes.
+  ///
+  /// The event args are `{"id", "position", "jitter"}`, where `jitter` is how
+  /// far past the cue the native clock was when it fired.
+  ///
+  /// ⚠️ Android only; cues never fire elsewhere
+  Future<String> addCue(String id, Duration position) async {
+    return await _invokeAndroid<String>(
+            "addCue", {"id": id, "position": position.inMilliseconds}) ??
+        "";
+  }
+
+  /// Remove a cue added with [addCue]. Returns false if it was unknown.
+  ///
+  /// ⚠️ Android only
+  Future<bool> removeCue(String id) async {
+    return await _invokeAndroid<bool>("removeCue", {"id": id}) ?? false;
+  }
+
+  /// Loop between [start] and [end] of the current track: playback seeks
+  /// back to [start] when it reaches [end]. Pass nulls to stop looping.
+  ///
+  /// ⚠️ Android only
+  Future<String> setLoop(Duration? start, Duration? end) async {
+    return await _invokeAndroid<String>("setLoop", {
+          "start": start?.inMilliseconds,
+          "end": end?.inMilliseconds,
+        }) ??
+        "";
+  }
+
+  /// Hand the whole LRC document of the current track to the native side.
+  ///
+  /// The notification and lock screen then follow the lyrics line by line
+  /// without [updateLrc] calls, also while the app is in the background.
+  /// May be called right after [start]; pass null to clear. Lyrics are
+  /// dropped when the track changes.
+  /// Returns the number of parsed lines.
+  ///
+  /// ⚠️ Android only; elsewhere it returns 0 and [updateLrc] still applies.
+  Future<int> setLyrics(String? lrc) async {
+    return await _invokeAndroid<int>("setLyrics", {"lrc": lrc}) ?? 0;
   }
 
   /// Update notification/remote-control metadata without restarting playback.
@@ -398,7 +670,7 @@ class AudioManager {
     current.showStopButton = newShowStopButton;
 
     final regx = RegExp(r'^(http|https|file):\/\/\/?([\w.]+\/?)\S*');
-    final result = await _channel.invokeMethod("updateInfo", {
+    final result = await _invoke("updateInfo", {
       "title": newTitle,
       "desc": newDesc,
       "cover": newCover,
@@ -411,6 +683,38 @@ class AudioManager {
     return result ?? "";
   }
 
+  bool _nativeQueue = false;
+  bool _autoAdvance = false;
+
+  /// Hand [audioList] and [playMode] over to the native side, so that
+  /// notification, lock-screen and headset skips switch tracks without a
+  /// round trip through Dart. Dart keeps receiving the resulting events.
+  ///
+  /// `autoAdvance`: play the next item natively when a track ends.
+  ///
+  /// ⚠️ Android only; elsewhere the queue stays in Dart and later list or
+  /// mode changes are not sent.
+  Future<String> setNativeQueue(bool enabled, {bool autoAdvance = false}) async {
+    _autoAdvance = autoAdvance;
+    final result =
+        await _invokeAndroid<String>("setQueue", _queueArguments(enabled));
+    if (result == null) return "";
+    _nativeQueue = enabled;
+    return result;
+  }
+
+  Map<String, dynamic> _queueArguments(bool enabled) {
+    return {
+      "items": enabled
+          ? _audioList.map((info) => _startArguments(info, true)).toList()
+          : [],
+      "index": _curIndex,
+      "mode": _playMode.index,
+      "order": _shuffleQueue,
+      "autoAdvance": _autoAdvance,
+    };
+  }
+
   /// Switch playback mode. `Playmode` priority is greater than `index`
   PlayMode nextMode({PlayMode? playMode, int? index}) {
     int mode = index ?? (_playMode.index + 1) % 3;
@@ -430,6 +734,7 @@ class AudioManager {
         _playMode = PlayMode.sequence;
         break;
     }
+    if (_nativeQueue) _invoke("setQueue", _queueArguments(true));
     return _playMode;
   }
 
@@ -500,9 +805,196 @@ class AudioManager {
     return _volume;
   }
 
+  /// Apply several native commands in one platform-channel round trip.
+  ///
+  /// Commands use the raw channel method names and arguments, e.g.
+  /// `MethodCall("seekTo", {"position": 30000})` or
+  /// `MethodCall("rate", {"rate": 1.5})`. They run in order on the player
+  /// thread and the notification is refreshed once after the last one.
+  /// Each result has `method` plus either `result` or `error`/`message`.
+  /// A `start` may be followed by `seekTo`/`rate`: while the track is still
+  /// preparing they are remembered and applied once it is ready.
+  ///
+  /// ⚠️ Android only, empty elsewhere. Dart-side state such as [info] is not
+  /// updated.
+  Future<List<Map<String, dynamic>>> batch(List<MethodCall> commands) async {
+    final result = await _invokeAndroid<List<dynamic>>("batch", {
+      "commands": commands
+          .map((command) =>
+              {"method": command.method, "arguments": command.arguments})
+          .toList(),
+    });
+    return (result ?? [])
+        .map((item) => Map<String, dynamic>.from(item as Map))
+        .toList();
+  }
+
+  /// Open the shared-memory position clock of this player.
+  ///
+  /// [PositionClock.read] returns the extrapolated position, duration, speed
+  /// and state without any platform-channel traffic, so progress bars can
+  /// poll it every frame instead of waiting for `timeupdate`.
+  /// Returns null when the clock is not available.
+  ///
+  /// ⚠️ Android only
+  Future<PositionClock?> positionClock() async {
+    if (_clock != null) return _clock;
+    final path = await _invokeAndroid<String>("positionClock");
+    if (path == null) return null;
+    _clock ??= PositionClock.open(path);
+    return _clock;
+  }
+
+  PositionClock? _clock;
+
+  /// Make this player the one shown in the notification and lock screen.
+  ///
+  /// ⚠️ Android only, a no-op elsewhere
+  Future<String> setPrimary() async {
+    return await _invokeAndroid<String>("setPrimary") ?? "";
+  }
+
+  /// Release the native player of a [player] instance and forget it.
+  /// Use [release] for the default [instance].
+  ///
+  /// ⚠️ Android only
+  Future<void> dispose() async {
+    if (playerId == defaultPlayerId) {
+      release();
+      return;
+    }
+    _players.remove(playerId);
+    _reset();
+    _clock?.close();
+    _clock = null;
+    await _invokeAndroid("disposePlayer");
+  }
+
+  Future<void> _resync() async {
+    final state = await currentState();
+    if (state.isEmpty) return;
+    _position = Duration(milliseconds: state["position"] ?? 0);
+    _duration = Duration(milliseconds: state["duration"] ?? 0);
+    _setPlaying(state["isPlaying"] ?? false);
+  }
+
+  /// Android service lifecycle counters: binds, creates and foreground
+  /// promotions since process start, media command latency from key press
+  /// to player, and error recovery counts and times (`recoveryAttempts`,
+  /// `recoveries`, `recoveryGiveUps`, `recoveryTotalMs`, `recoveryLastMs`).
+  /// Empty on other platforms.
+  Future<Map<String, dynamic>> serviceStats() async {
+    final Map? stats = await _androidOnly<Map>("serviceStats");
+    return Map<String, dynamic>.from(stats ?? const {});
+  }
+
+  /// Invoke a query only the Android side implements. Other platforms reply
+  /// not-implemented (web throws `Unimplemented`), which yields null here.
+  Future<T?> _androidOnly<T>(String method, [dynamic arguments]) async {
+    try {
+      return await _channel.invokeMethod<T>(method, arguments);
+    } on MissingPluginException {
+      return null;
+    } on PlatformException catch (e) {
+      if (e.code == 'Unimplemented') return null;
+      rethrow;
+    }
+  }
+
+  /// Android wifi lock usage: whether it is held, acquire count and hold
+  /// times in milliseconds. Empty on other platforms.
+  Future<Map<String, dynamic>> networkLockStats() async {
+    final Map? stats = await _androidOnly<Map>("networkLockStats");
+    return Map<String, dynamic>.from(stats ?? const {});
+  }
+
+  /// Warm DNS and connections for the hosts of [urls], e.g. the next items'
+  /// audio and cover urls, so starting them skips the handshake. With
+  /// [setNativeQueue] enabled Android does this for the next item
+  /// automatically. No-op on other platforms.
+  Future<void> preconnect(List<String> urls) async {
+    await _androidOnly("preconnect", {"urls": urls});
+  }
+
+  /// Android bandwidth estimate used to pick [AudioInfo.variants]:
+  /// `estimate` in bits per second, `samples` and `sinceLastSampleMs`.
+  /// Empty on other platforms.
+  Future<Map<String, dynamic>> throughputStats() async {
+    final Map? stats = await _androidOnly<Map>("throughputStats");
+    return Map<String, dynamic>.from(stats ?? const {});
+  }
+
+  /// Android per-host time to first byte from mirror races, keyed by
+  /// origin: `{latencyMs, samples, failures}`. Empty on other platforms.
+  Future<Map<String, dynamic>> mirrorStats() async {
+    final Map? stats = await _androidOnly<Map>("mirrorStats");
+    return Map<String, dynamic>.from(stats ?? const {});
+  }
+
+  /// Read duration, bitrate, title, artist, album and whether there is
+  /// embedded artwork for each of [urls] without loading them into the
+  /// player, e.g. to fill in a playlist. Android works on a small background
+  /// pool and caches results per file version, so results arrive as
+  /// [AudioManagerEvents.probe] events in completion order, not call order.
+  /// Returns the number of queued urls, 0 on other platforms.
+  Future<int> probe(List<String> urls) async {
+    // Same local/asset rule as start, so a url resolves the same way in both
+    final regx = RegExp(r'^(http|https|file):\/\/\/?([\w.]+\/?)\S*');
+    return await _androidOnly<int>("probe", {
+          "urls": urls,
+          "isLocal": urls.map((url) => !regx.hasMatch(url)).toList(),
+        }) ??
+        0;
+  }
+
+  /// Download [url] for offline playback. Progress, completion and failure
+  /// arrive as [AudioManagerEvents.download] events, progress at most twice
+  /// a second. Calling it again after an interruption resumes from the
+  /// segments already on disk. When [sha256] is given the file must match
+  /// it. Once complete, [start] plays the local copy. No-op on other
+  /// platforms.
+  Future<void> download(String url, {String? sha256}) async {
+    await _androidOnly("download", {"url": url, "sha256": sha256});
+  }
+
+  /// Pause a running download; finished segments are kept.
+  Future<void> cancelDownload(String url) async {
+    await _androidOnly("cancelDownload", {"url": url});
+  }
+
+  /// Delete the offline copy and any partial download of [url].
+  Future<void> removeDownload(String url) async {
+    await _androidOnly("removeDownload", {"url": url});
+  }
+
+  /// `{state, received, total, path}` where `state` is none, paused,
+  /// running or completed. Empty on other platforms.
+  Future<Map<String, dynamic>> downloadState(String url) async {
+    final Map? state = await _androidOnly<Map>("downloadState", {"url": url});
+    return Map<String, dynamic>.from(state ?? const {});
+  }
+
+  /// Recent native diagnostics events (state changes, errors, timings), one
+  /// line each, oldest first. Attach this to bug reports. Empty on other
+  /// platforms.
+  Future<List<String>> diagnostics() async {
+    final List? lines = await _androidOnly<List>("diagnostics");
+    return List<String>.from(lines ?? const []);
+  }
+
+  /// Set the Android logcat threshold using `android.util.Log` priorities
+  /// (2 verbose … 6 error). Defaults to 4 (info). The diagnostics buffer
+  /// records regardless of this level. No-op on other platforms.
+  Future<void> setLogLevel(int level) async {
+    await _androidOnly("setLogLevel", {"level": level});
+  }
+
   /// Query the current native playback state from a non-UI context.
+  ///
+  /// On Android `state` is the player state code, matching
+  /// [PositionState.index].
   Future<Map<String, dynamic>> currentState() async {
-    final result = await _channel.invokeMethod("getState");
+    final result = await _invoke("getState");
     if (result is Map) return Map<String, dynamic>.from(result);
     return <String, dynamic>{};
   }
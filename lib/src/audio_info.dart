@@ -8,6 +8,19 @@ class AudioInfo {
   bool showNextButton;
   bool showStopButton;
 
+  /// Use the artwork embedded in local or asset audio (ID3/MP4) for the
+  /// notification, falling back to [coverUrl]. Android only.
+  bool embeddedCover;
+
+  /// The same track at other bitrates. Android picks one from its bandwidth
+  /// estimate and steps down after repeated stalls; [url] stays the track's
+  /// identity for resume and offline downloads.
+  List<AudioVariant> variants;
+
+  /// Other URLs serving the same file as [url]. Android races them for the
+  /// first bytes and remembers which host answers fastest.
+  List<String> mirrors;
+
   AudioInfo(this.url,
       {required this.title,
       required this.desc,
@@ -15,7 +28,10 @@ class AudioInfo {
       this.titleMaxLines = 1,
       this.showPreviousButton = false,
       this.showNextButton = true,
-      this.showStopButton = true});
+      this.showStopButton = true,
+      this.embeddedCover = false,
+      this.variants = const [],
+      this.mirrors = const []});
 
   AudioInfo.fromJson(Map<String, dynamic> json)
       : url = json['url'],
@@ -29,7 +45,11 @@ class AudioInfo {
         showNextButton =
             json['showNextButton'] == true || json['showNextButton'] == 'true',
         showStopButton =
-            json['showStopButton'] == true || json['showStopButton'] == 'true';
+            json['showStopButton'] == true || json['showStopButton'] == 'true',
+        embeddedCover =
+            json['embeddedCover'] == true || json['embeddedCover'] == 'true',
+        variants = const [],
+        mirrors = const [];
 
   Map<String, String> toJson() => {
         'url': url,
@@ -40,6 +60,7 @@ class AudioInfo {
         'showPreviousButton': '$showPreviousButton',
         'showNextButton': '$showNextButton',
         'showStopButton': '$showStopButton',
+        'embeddedCover': '$embeddedCover',
       };
 
   @override
@@ -47,3 +68,13 @@ class AudioInfo {
     return 'AudioInfo{url: $url, title: $title, desc: $desc, coverUrl: $coverUrl, titleMaxLines: $titleMaxLines}';
   }
 }
+
+/// One encoding of a track, [bitrate] in bits per second
+class AudioVariant {
+  final String url;
+  final int bitrate;
+
+  const AudioVariant(this.url, {required this.bitrate});
+
+  Map<String, dynamic> toMap() => {'url': url, 'bitrate': bitrate};
+}
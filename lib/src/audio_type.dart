@@ -25,6 +25,23 @@ enum AudioManagerEvents {
 
   /// ⚠️ IOS simulator is invalid, please use real machine
   volumeChange,
+
+  /// a cue added with `addCue` was reached, args `{id, position, jitter}`
+  cue,
+
+  /// Android is retrying after a network error, args `{attempt, delay}`;
+  /// playback resumes at the last position, `error` only follows once the
+  /// retries are used up
+  recovering,
+
+  /// one result of `probe`, args `{url, duration, bitrate, title, artist,
+  /// album, hasArtwork, cached}` or `{url, error}`
+  probe,
+
+  /// offline download progress started with `download`, args
+  /// `{url, state, received, total, path, error}`; `state` is
+  /// running, completed or failed
+  download,
   unknow
 }
 
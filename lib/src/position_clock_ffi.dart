@@ -0,0 +1,154 @@
+import 'dart:convert' show utf8;
+import 'dart:ffi';
+
+import 'package:audio_manager/src/position_snapshot.dart';
+
+// 与 Android PositionClock 的共享内存布局保持一致（本机字节序）：
+// 0 int32 版本号 | 4 int32 状态 | 8 int64 锚点进度(ms)
+// | 16 int64 锚点时间(CLOCK_MONOTONIC ns) | 24 int64 时长(ms) | 32 float32 速率
+const int _size = 64;
+const int _oRdonly = 0;
+const int _protRead = 1;
+const int _mapShared = 1;
+const int _clockMonotonic = 1;
+const int _maxRetries = 8;
+
+final class _Timespec extends Struct {
+  @IntPtr()
+  external int tvSec;
+
+  @IntPtr()
+  external int tvNsec;
+}
+
+typedef _OpenC = Int32 Function(Pointer<Uint8>, Int32);
+typedef _OpenDart = int Function(Pointer<Uint8>, int);
+typedef _CloseC = Int32 Function(Int32);
+typedef _CloseDart = int Function(int);
+typedef _MmapC = Pointer<Void> Function(
+    Pointer<Void>, IntPtr, Int32, Int32, Int32, IntPtr);
+typedef _MmapDart = Pointer<Void> Function(
+    Pointer<Void>, int, int, int, int, int);
+typedef _MunmapC = Int32 Function(Pointer<Void>, IntPtr);
+typedef _MunmapDart = int Function(Pointer<Void>, int);
+typedef _ClockGettimeC = Int32 Function(Int32, Pointer<_Timespec>);
+typedef _ClockGettimeDart = int Function(int, Pointer<_Timespec>);
+typedef _MallocC = Pointer<Void> Function(IntPtr);
+typedef _MallocDart = Pointer<Void> Function(int);
+typedef _FreeC = Void Function(Pointer<Void>);
+typedef _FreeDart = void Function(Pointer<Void>);
+
+class _Libc {
+  _Libc(DynamicLibrary lib)
+      : open = lib.lookupFunction<_OpenC, _OpenDart>('open'),
+        close = lib.lookupFunction<_CloseC, _CloseDart>('close'),
+        mmap = lib.lookupFunction<_MmapC, _MmapDart>('mmap'),
+        munmap = lib.lookupFunction<_MunmapC, _MunmapDart>('munmap'),
+        clockGettime = lib
+            .lookupFunction<_ClockGettimeC, _ClockGettimeDart>('clock_gettime'),
+        malloc = lib.lookupFunction<_MallocC, _MallocDart>('malloc'),
+        free = lib.lookupFunction<_FreeC, _FreeDart>('free');
+
+  final _OpenDart open;
+  final _CloseDart close;
+  final _MmapDart mmap;
+  final _MunmapDart munmap;
+  final _ClockGettimeDart clockGettime;
+  final _MallocDart malloc;
+  final _FreeDart free;
+
+  static _Libc? _instance;
+
+  static _Libc? get instance {
+    if (_instance != null) return _instance;
+    try {
+      _instance = _Libc(DynamicLibrary.process());
+    } on Object {
+      return null;
+    }
+    return _instance;
+  }
+}
+
+/// Read-only view of the native position clock.
+///
+/// The native side only writes on state changes (play, pause, seek, speed,
+/// buffering). Each [read] is a few memory loads plus one `clock_gettime`,
+/// so it is cheap enough to call on every frame.
+class PositionClock {
+  PositionClock._(this._libc, this._base, this._now);
+
+  final _Libc _libc;
+  Pointer<Void>? _base;
+  final Pointer<_Timespec> _now;
+
+  /// Map the clock file written by the Android side. Returns null when the
+  /// file cannot be mapped.
+  static PositionClock? open(String path) {
+    final libc = _Libc.instance;
+    if (libc == null) return null;
+    final bytes = utf8.encode(path);
+    final cPath = libc.malloc(bytes.length + 1).cast<Uint8>();
+    if (cPath == nullptr) return null;
+    cPath.asTypedList(bytes.length + 1)
+      ..setAll(0, bytes)
+      ..[bytes.length] = 0;
+    final fd = libc.open(cPath, _oRdonly);
+    libc.free(cPath.cast());
+    if (fd < 0) return null;
+    final base = libc.mmap(nullptr, _size, _protRead, _mapShared, fd, 0);
+    // 映射建立后即可关闭文件描述符
+    libc.close(fd);
+    if (base.address == -1 || base.address == 0xFFFFFFFF) return null;
+    final now = libc.malloc(sizeOf<_Timespec>()).cast<_Timespec>();
+    if (now == nullptr) {
+      libc.munmap(base, _size);
+      return null;
+    }
+    return PositionClock._(libc, base, now);
+  }
+
+  /// Take a consistent snapshot, or null if the writer kept the clock busy
+  /// for every retry or the clock was closed.
+  PositionSnapshot? read() {
+    final base = _base;
+    if (base == null) return null;
+    final ints = base.cast<Int32>();
+    final longs = base.cast<Int64>();
+    final floats = base.cast<Float>();
+    for (var attempt = 0; attempt < _maxRetries; attempt++) {
+      final version = ints[0];
+      // 奇数版本号表示写入中
+      if (version.isOdd) continue;
+      final state = ints[1];
+      final anchorMs = longs[1];
+      final timestamp = longs[2];
+      final durationMs = longs[3];
+      final speed = floats[8];
+      if (ints[0] != version) continue;
+      return PositionSnapshot.fromRaw(
+        state: state,
+        anchorMs: anchorMs,
+        elapsedNs: _monotonicNs() - timestamp,
+        durationMs: durationMs,
+        speed: speed,
+      );
+    }
+    return null;
+  }
+
+  /// Unmap the clock. Further reads return null.
+  void close() {
+    final base = _base;
+    if (base == null) return;
+    _base = null;
+    _libc.munmap(base, _size);
+    _libc.free(_now.cast());
+  }
+
+  int _monotonicNs() {
+    _libc.clockGettime(_clockMonotonic, _now);
+    final now = _now.ref;
+    return now.tvSec * 1000000000 + now.tvNsec;
+  }
+}
@@ -0,0 +1,13 @@
+import 'package:audio_manager/src/position_snapshot.dart';
+
+/// Position clock placeholder for web/WASM builds, where `dart:ffi` is
+/// unavailable. [open] always returns null.
+class PositionClock {
+  PositionClock._();
+
+  static PositionClock? open(String path) => null;
+
+  PositionSnapshot? read() => null;
+
+  void close() {}
+}
@@ -0,0 +1,58 @@
+/// Playback states published by the native position clock.
+///
+/// The order matches the state codes written by the Android side.
+enum PositionState {
+  idle,
+  preparing,
+  prepared,
+  playing,
+  paused,
+  buffering,
+  ended,
+  error,
+}
+
+/// One consistent read of the native position clock.
+class PositionSnapshot {
+  const PositionSnapshot({
+    required this.state,
+    required this.position,
+    required this.duration,
+    required this.speed,
+  });
+
+  final PositionState state;
+
+  /// Position extrapolated to the moment of the read.
+  final Duration position;
+  final Duration duration;
+  final double speed;
+
+  bool get isPlaying => state == PositionState.playing;
+
+  /// Decode a raw snapshot. While playing, the position is extrapolated as
+  /// `anchor + elapsed × speed` and clamped to the duration.
+  factory PositionSnapshot.fromRaw({
+    required int state,
+    required int anchorMs,
+    required int elapsedNs,
+    required int durationMs,
+    required double speed,
+  }) {
+    final decoded = state >= 0 && state < PositionState.values.length
+        ? PositionState.values[state]
+        : PositionState.idle;
+    var positionMs = anchorMs;
+    if (decoded == PositionState.playing && elapsedNs > 0) {
+      positionMs += (elapsedNs * speed / 1000000).round();
+    }
+    if (durationMs > 0 && positionMs > durationMs) positionMs = durationMs;
+    if (positionMs < 0) positionMs = 0;
+    return PositionSnapshot(
+      state: decoded,
+      position: Duration(milliseconds: positionMs),
+      duration: Duration(milliseconds: durationMs),
+      speed: speed,
+    );
+  }
+}
@@ -18,6 +18,7 @@ void main() {
       if (methodCall.method == 'updateInfo') return '';
       if (methodCall.method == 'getState') {
         return {
+          'state': 4,
           'isPlaying': false,
           'position': 1,
           'duration': 10,
@@ -103,10 +104,437 @@ void main() {
     expect(manager.isLoading, isFalse);
   });
 
+  test('player instances tag calls and receive their own events', () async {
+    final calls = <MethodCall>[];
+    messenger.setMockMethodCallHandler(channel, (MethodCall methodCall) async {
+      calls.add(methodCall);
+      if (methodCall.method == 'currentVolume') return 0.5;
+      return '';
+    });
+
+    final voice = AudioManager.player('voice');
+    expect(identical(voice, AudioManager.player('voice')), isTrue);
+    await voice.setPrimary();
+    expect(calls.last.arguments['playerId'], 'voice');
+
+    final ready = const StandardMethodCodec().encodeMethodCall(
+        const MethodCall('playerEvent', {
+      'playerId': 'voice',
+      'method': 'ready',
+      'arguments': 2000,
+    }));
+    await messenger.handlePlatformMessage('audio_manager', ready, (_) {});
+
+    expect(voice.duration, const Duration(milliseconds: 2000));
+    expect(AudioManager.instance.duration,
+        isNot(const Duration(milliseconds: 2000)));
+
+    await voice.dispose();
+    expect(calls.last.method, 'disposePlayer');
+  });
+
+  test('native queue syncs the playlist and follows native skips', () async {
+    final calls = <MethodCall>[];
+    messenger.setMockMethodCallHandler(channel, (MethodCall methodCall) async {
+      calls.add(methodCall);
+      if (methodCall.method == 'currentVolume') return 0.5;
+      return '';
+    });
+
+    final manager = AudioManager.instance;
+    manager.nextMode(playMode: PlayMode.sequence);
+    manager.audioList = List.generate(
+      3,
+      (index) => AudioInfo('queue$index',
+          title: 'title$index', desc: 'desc$index', coverUrl: 'cover$index'),
+    );
+    await manager.setNativeQueue(true);
+    expect(calls.last.method, 'setQueue');
+    expect(calls.last.arguments['items'], hasLength(3));
+
+    final events = <AudioManagerEvents>[];
+    manager.onEvents((event, args) => events.add(event));
+    final skipped = const StandardMethodCodec().encodeMethodCall(
+        const MethodCall('queueIndex', {'index': 2, 'reason': 'next'}));
+    await messenger.handlePlatformMessage('audio_manager', skipped, (_) {});
+
+    expect(manager.curIndex, 2);
+    expect(manager.info!.url, 'queue2');
+    expect(events, [AudioManagerEvents.start, AudioManagerEvents.next]);
+
+    await manager.setNativeQueue(false);
+    expect(calls.last.arguments['items'], isEmpty);
+    manager.onEvents((event, args) {});
+  });
+
+  test('sequenced events are unwrapped and a gap triggers one resync',
+      () async {
+    final calls = <String>[];
+    messenger.setMockMethodCallHandler(channel, (MethodCall methodCall) async {
+      calls.add(methodCall.method);
+      if (methodCall.method == 'currentVolume') return 0.5;
+      if (methodCall.method == 'getState') {
+        return {'isPlaying': false, 'position': 0, 'duration': 5000};
+      }
+      return '';
+    });
+    final manager = AudioManager.instance;
+
+    Future<void> send(int seq, String method, Object? arguments,
+        {int? dropped}) {
+      final message = const StandardMethodCodec().encodeMethodCall(MethodCall(
+          'event', {
+        'seq': seq,
+        'method': method,
+        'arguments': arguments,
+        if (dropped != null) 'dropped': dropped,
+      }));
+      return messenger.handlePlatformMessage('audio_manager', message, (_) {});
+    }
+
+    await send(100, 'ready', 3000);
+    expect(manager.duration, const Duration(milliseconds: 3000));
+    await send(101, 'ready', 4000);
+    expect(calls, isNot(contains('getState')));
+
+    await send(105, 'ready', 5000);
+    expect(manager.duration, const Duration(milliseconds: 5000));
+    expect(calls.where((method) => method == 'getState'), hasLength(1));
+
+    // Contiguous seq, but the native ring overflowed before the flush, as
+    // seen by a fresh isolate that has no previous seq to compare with
+    await send(106, 'ready', 6000, dropped: 3);
+    expect(calls.where((method) => method == 'getState'), hasLength(2));
+  });
+
+  test('batch sends ordered commands and returns per-command results',
+      () async {
+    MethodCall? batchCall;
+    messenger.setMockMethodCallHandler(channel, (MethodCall methodCall) async {
+      if (methodCall.method == 'currentVolume') return 0.5;
+      if (methodCall.method != 'batch') return null;
+      batchCall = methodCall;
+      return [
+        {'method': 'seekTo'},
+        {'method': 'rate', 'error': 'notImplemented'},
+      ];
+    });
+
+    final results = await AudioManager.instance.batch(const [
+      MethodCall('seekTo', {'position': 1000}),
+      MethodCall('rate', {'rate': 1.5}),
+    ]);
+
+    final commands = batchCall!.arguments['commands'] as List;
+    expect(commands.map((command) => command['method']), ['seekTo', 'rate']);
+    expect(commands.first['arguments'], {'position': 1000});
+    expect(results, hasLength(2));
+    expect(results.last['error'], 'notImplemented');
+  });
+
+  test('batch can start a track and queue seek and rate behind it',
+      () async {
+    MethodCall? batchCall;
+    messenger.setMockMethodCallHandler(channel, (MethodCall methodCall) async {
+      if (methodCall.method == 'currentVolume') return 0.5;
+      if (methodCall.method != 'batch') return null;
+      batchCall = methodCall;
+      // The native side defers seek/rate while the track is preparing, so
+      // every command succeeds instead of reporting "媒体资源加载失败"
+      return [
+        {'method': 'start', 'result': null},
+        {'method': 'seekTo', 'result': null},
+        {'method': 'rate', 'result': null},
+      ];
+    });
+
+    final results = await AudioManager.instance.batch(const [
+      MethodCall('start', {
+        'url': 'https://example.com/a.mp3',
+        'title': 'a',
+        'desc': '',
+        'cover': '',
+        'isAuto': true,
+      }),
+      MethodCall('seekTo', {'position': 30000}),
+      MethodCall('rate', {'rate': 1.5}),
+    ]);
+
+    final commands = batchCall!.arguments['commands'] as List;
+    expect(commands.map((command) => command['method']),
+        ['start', 'seekTo', 'rate']);
+    expect(commands.first['arguments']['url'], 'https://example.com/a.mp3');
+    expect(results.map((result) => result['error']), everyElement(isNull));
+  });
+
+  test('Android-only queries are empty where they are not implemented',
+      () async {
+    messenger.setMockMethodCallHandler(channel, (MethodCall methodCall) async {
+      if (methodCall.method == 'currentVolume') return 0.5;
+      throw MissingPluginException();
+    });
+    final manager = AudioManager.instance;
+
+    expect(await manager.serviceStats(), isEmpty);
+    expect(await manager.networkLockStats(), isEmpty);
+    expect(await manager.throughputStats(), isEmpty);
+    expect(await manager.mirrorStats(), isEmpty);
+    expect(await manager.diagnostics(), isEmpty);
+    await manager.setLogLevel(2);
+    await manager.preconnect(['https://example.com/a.mp3']);
+    expect(await manager.probe(['https://example.com/a.mp3']), 0);
+    await manager.download('https://example.com/a.mp3');
+    await manager.cancelDownload('https://example.com/a.mp3');
+    await manager.removeDownload('https://example.com/a.mp3');
+    expect(await manager.downloadState('https://example.com/a.mp3'), isEmpty);
+    expect(await manager.setPrimary(), '');
+    expect(await manager.setCrossfade(Duration(seconds: 3)), '');
+    expect(manager.crossfade, Duration.zero);
+    expect(await manager.setNativeQueue(true), '');
+    expect(await manager.batch([MethodCall('seekTo', {'position': 0})]),
+        isEmpty);
+    expect(await manager.setLyrics('[00:01.00]line'), 0);
+    expect(await manager.addCue('intro', Duration(seconds: 5)), '');
+    expect(await manager.removeCue('intro'), false);
+    expect(await manager.setLoop(Duration.zero, Duration(seconds: 5)), '');
+    expect(await manager.setResumeEnabled(true), '');
+    expect(await manager.resumePosition('https://example.com/a.mp3'),
+        Duration.zero);
+    await AudioManager.player('unsupported').dispose();
+  });
+
+  test('position snapshot extrapolates only while playing', () {
+    final playing = PositionSnapshot.fromRaw(
+      state: PositionState.playing.index,
+      anchorMs: 1000,
+      elapsedNs: 500000000,
+      durationMs: 10000,
+      speed: 2.0,
+    );
+    expect(playing.position, const Duration(milliseconds: 2000));
+
+    final paused = PositionSnapshot.fromRaw(
+      state: PositionState.paused.index,
+      anchorMs: 1000,
+      elapsedNs: 500000000,
+      durationMs: 10000,
+      speed: 2.0,
+    );
+    expect(paused.position, const Duration(milliseconds: 1000));
+
+    final clamped = PositionSnapshot.fromRaw(
+      state: PositionState.playing.index,
+      anchorMs: 9900,
+      elapsedNs: 1000000000,
+      durationMs: 10000,
+      speed: 1.0,
+    );
+    expect(clamped.position, const Duration(milliseconds: 10000));
+  });
+
+  test('setLyrics forwards the whole document and returns the line count',
+      () async {
+    MethodCall? lyricsCall;
+    messenger.setMockMethodCallHandler(channel, (MethodCall methodCall) async {
+      if (methodCall.method != 'setLyrics') return null;
+      lyricsCall = methodCall;
+      return 2;
+    });
+
+    const lrc = '[00:01.00]first\n[00:02.50]second';
+    expect(await AudioManager.instance.setLyrics(lrc), 2);
+    expect(lyricsCall!.arguments['lrc'], lrc);
+  });
+
+  test('cue events surface their id and measured jitter', () async {
+    final player = AudioManager.player('cues');
+    final cues = <dynamic>[];
+    player.onEvents((events, args) {
+      if (events == AudioManagerEvents.cue) cues.add(args);
+    });
+
+    final cue = const StandardMethodCodec().encodeMethodCall(
+        const MethodCall('playerEvent', {
+      'playerId': 'cues',
+      'method': 'cue',
+      'arguments': {'id': 'chorus', 'position': 12340, 'jitter': 3},
+    }));
+    await messenger.handlePlatformMessage('audio_manager', cue, (_) {});
+
+    expect(cues, hasLength(1));
+    expect(cues.single['id'], 'chorus');
+    expect(cues.single['position'], const Duration(milliseconds: 12340));
+    expect(cues.single['jitter'], const Duration(milliseconds: 3));
+    await player.dispose();
+  });
+
+  test('recovering events report the attempt and backoff', () async {
+    final player = AudioManager.player('recovery');
+    final events = <dynamic>[];
+    player.onEvents((event, args) {
+      if (event == AudioManagerEvents.recovering) events.add(args);
+    });
+
+    final recovering = const StandardMethodCodec().encodeMethodCall(
+        const MethodCall('playerEvent', {
+      'playerId': 'recovery',
+      'method': 'recovering',
+      'arguments': {'attempt': 2, 'delay': 1500},
+    }));
+    await messenger.handlePlatformMessage('audio_manager', recovering, (_) {});
+
+    expect(events.single['attempt'], 2);
+    expect(events.single['delay'], const Duration(milliseconds: 1500));
+    expect(player.isLoading, isTrue);
+    await player.dispose();
+  });
+
+  test('resume position is queried by url', () async {
+    MethodCall? resumeCall;
+    messenger.setMockMethodCallHandler(channel, (MethodCall methodCall) async {
+      if (methodCall.method != 'resumePosition') return null;
+      resumeCall = methodCall;
+      return 42000;
+    });
+
+    final position =
+        await AudioManager.instance.resumePosition('https://example.com/1.mp3');
+    expect(position, const Duration(seconds: 42));
+    expect(resumeCall!.arguments['url'], 'https://example.com/1.mp3');
+  });
+
+  test('diagnostics returns the native event lines', () async {
+    messenger.setMockMethodCallHandler(channel, (MethodCall methodCall) async {
+      if (methodCall.method != 'diagnostics') return null;
+      return ['100 state default 1 3', '250 error bad url 0 0'];
+    });
+
+    final lines = await AudioManager.instance.diagnostics();
+    expect(lines, hasLength(2));
+    expect(lines.last, contains('error'));
+  });
+
+  test('start forwards bitrate variants', () async {
+    MethodCall? startCall;
+    messenger.setMockMethodCallHandler(channel, (MethodCall methodCall) async {
+      if (methodCall.method == 'start') startCall = methodCall;
+      return null;
+    });
+
+    await AudioManager.instance.start('https://example.com/song', 'variants',
+        desc: 'desc',
+        cover: 'https://example.com/cover.jpg',
+        variants: const [
+          AudioVariant('https://example.com/song_128.mp3', bitrate: 128000),
+          AudioVariant('https://example.com/song_320.mp3', bitrate: 320000),
+        ]);
+
+    final variants = startCall!.arguments['variants'] as List;
+    expect(variants, hasLength(2));
+    expect(variants.last['bitrate'], 320000);
+    expect(startCall!.arguments.containsKey('mirrors'), isFalse);
+  });
+
+  test('start forwards mirror urls', () async {
+    MethodCall? startCall;
+    messenger.setMockMethodCallHandler(channel, (MethodCall methodCall) async {
+      if (methodCall.method == 'start') startCall = methodCall;
+      return null;
+    });
+
+    await AudioManager.instance.start(
+        'https://a.example.com/song.mp3', 'mirrors',
+        desc: 'desc',
+        cover: 'https://example.com/cover.jpg',
+        mirrors: const ['https://b.example.com/song.mp3']);
+
+    expect(startCall!.arguments['url'], 'https://a.example.com/song.mp3');
+    expect(startCall!.arguments['mirrors'], ['https://b.example.com/song.mp3']);
+  });
+
+  test('embeddedCover survives json and reaches start', () async {
+    MethodCall? startCall;
+    messenger.setMockMethodCallHandler(channel, (MethodCall methodCall) async {
+      if (methodCall.method == 'start') startCall = methodCall;
+      return null;
+    });
+    final info = AudioInfo.fromJson(AudioInfo('assets/song.mp3',
+            title: 'embedded',
+            desc: 'desc',
+            coverUrl: 'assets/cover.png',
+            embeddedCover: true)
+        .toJson());
+
+    await AudioManager.instance.startInfo(info, auto: false);
+
+    expect(info.embeddedCover, isTrue);
+    expect(startCall!.arguments['embeddedCover'], isTrue);
+  });
+
+  test('probe results arrive as events with a duration', () async {
+    messenger.setMockMethodCallHandler(channel, (MethodCall methodCall) async {
+      if (methodCall.method == 'probe') {
+        return methodCall.arguments['urls'].length;
+      }
+      return null;
+    });
+    final manager = AudioManager.instance;
+    final results = <dynamic>[];
+    manager.onEvents((event, args) {
+      if (event == AudioManagerEvents.probe) results.add(args);
+    });
+
+    expect(await manager.probe(['a.mp3', 'https://example.com/b.mp3']), 2);
+    final result = const StandardMethodCodec().encodeMethodCall(
+        const MethodCall('probe', {
+      'url': 'a.mp3',
+      'duration': 185000,
+      'title': 'Song',
+      'hasArtwork': true,
+      'cached': false,
+    }));
+    await messenger.handlePlatformMessage('audio_manager', result, (_) {});
+
+    expect(results.single['url'], 'a.mp3');
+    expect(results.single['duration'], const Duration(minutes: 3, seconds: 5));
+  });
+
+  test('download events and state carry the url', () async {
+    MethodCall? downloadCall;
+    messenger.setMockMethodCallHandler(channel, (MethodCall methodCall) async {
+      if (methodCall.method == 'download') downloadCall = methodCall;
+      if (methodCall.method == 'downloadState') {
+        return {'state': 'paused'};
+      }
+      return null;
+    });
+    final manager = AudioManager.instance;
+    final events = <dynamic>[];
+    manager.onEvents((event, args) {
+      if (event == AudioManagerEvents.download) events.add(args);
+    });
+
+    await manager.download('https://example.com/1.mp3', sha256: 'ab12');
+    expect(downloadCall!.arguments['sha256'], 'ab12');
+    final progress = const StandardMethodCodec().encodeMethodCall(
+        const MethodCall('download', {
+      'url': 'https://example.com/1.mp3',
+      'state': 'running',
+      'received': 1024,
+      'total': 4096,
+    }));
+    await messenger.handlePlatformMessage('audio_manager', progress, (_) {});
+
+    expect(events.single['received'], 1024);
+    final state = await manager.downloadState('https://example.com/1.mp3');
+    expect(state['state'], 'paused');
+  });
+
   test('currentState returns native state', () async {
     final state = await AudioManager.instance.currentState();
 
     expect(state['title'], 'state title');
     expect(state['isPlaying'], isFalse);
+    expect(PositionState.values[state['state']], PositionState.paused);
   });
 }